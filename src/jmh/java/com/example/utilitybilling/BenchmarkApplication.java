@@ -0,0 +1,123 @@
+package com.example.utilitybilling;
+
+import com.example.utilitybilling.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+// The application (without its web layer unless started with startWeb) on a private in-memory H2 database,
+// plus seeding helpers.
+// Benchmarks start one per trial and size the data through their @Param values.
+public final class BenchmarkApplication implements AutoCloseable {
+
+    private static final int SEED_BATCH = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    private BenchmarkApplication(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    public static BenchmarkApplication start(String databaseName, String... properties) {
+        return start(WebApplicationType.NONE, databaseName, properties);
+    }
+
+    // With the web layer on a random port (see port())
+    public static BenchmarkApplication startWeb(String databaseName, String... properties) {
+        return start(WebApplicationType.SERVLET, databaseName,
+                Stream.concat(Stream.of("server.port=0"), Arrays.stream(properties)).toArray(String[]::new));
+    }
+
+    private static BenchmarkApplication start(WebApplicationType type, String databaseName, String... properties) {
+        String[] defaults = {
+                "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "logging.level.org.hibernate.SQL=OFF",
+                "spring.main.banner-mode=off",
+                // benchmarks trigger generation themselves
+                "billing.generation.catch-up-on-startup=false"};
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UtilityBillingApplication.class)
+                .web(type)
+                .properties(Stream.concat(Arrays.stream(defaults), Arrays.stream(properties)).toArray(String[]::new))
+                .run();
+        return new BenchmarkApplication(context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbcTemplate;
+    }
+
+    public Statistics statistics() {
+        return context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Inserts providers with all frequencies and due days spread evenly; returns their ids
+    public List<UUID> seedProviders(int count, LocalDateTime createdAt) {
+        BillingFrequency[] frequencies = BillingFrequency.values();
+        Timestamp created = Timestamp.valueOf(createdAt);
+        List<UUID> ids = new ArrayList<>(count);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            batch.add(new Object[]{id, "Provider " + i, frequencies[i % frequencies.length].name(),
+                    1 + i % 28, created, BigDecimal.valueOf(1000 + i % 9000, 2)});
+            if (batch.size() == SEED_BATCH || i == count - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO utility_provider " +
+                        "(id, name, frequency, due_day, created_at, default_amount) VALUES (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return ids;
+    }
+
+    // Inserts one PAYED bill per provider for each of the given months
+    public void seedPaidBills(List<UUID> providerIds, YearMonth firstMonth, int months) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (int m = 0; m < months; m++) {
+            YearMonth month = firstMonth.plusMonths(m);
+            for (int i = 0; i < providerIds.size(); i++) {
+                batch.add(new Object[]{UUID.randomUUID(), providerIds.get(i), BigDecimal.valueOf(1000 + i % 9000, 2),
+                        BillStatus.PAYED.name(), Timestamp.valueOf(month.atDay(1 + i % 28).atStartOfDay()), now, now});
+                if (batch.size() == SEED_BATCH) {
+                    insertBills(batch);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBills(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private void insertBills(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO bill " +
+                "(id, provider_id, amount, status, due_date, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.utilitybilling;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load test of the HTTP API: N clients each send requests back to back (90% keyset-paged bill
+// reads, 10% provider creations) against the application started once with platform and once with virtual
+// request threads. Prints throughput, latency percentiles and the share of requests shed with 503.
+// Not a JMH benchmark: run with ./gradlew loadTest -PjavaVersion=21 [-Pload.args="--clients=1000 --seconds=30"]
+public final class LoadTest {
+
+    private record Result(String mode, long requests, long shed, long errors, double seconds, long[] latencies) {
+
+        long percentileMicros(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[Math.min(latencies.length - 1, (int) Math.ceil(p * latencies.length) - 1)] / 1000;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "clients", "1000", "seconds", "30", "warmup", "10", "providers", "10000", "modes", "platform,virtual"));
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        int clients = Integer.parseInt(options.get("clients"));
+        int seconds = Integer.parseInt(options.get("seconds"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        int providers = Integer.parseInt(options.get("providers"));
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : options.get("modes").split(",")) {
+            boolean virtual = mode.equals("virtual");
+            if (virtual && Runtime.version().feature() < 21) {
+                System.out.println("Skipping virtual threads: running on Java " + Runtime.version().feature());
+                continue;
+            }
+            try (BenchmarkApplication application = BenchmarkApplication.startWeb("load-" + mode,
+                    "spring.threads.virtual.enabled=" + virtual,
+                    "server.tomcat.max-connections=" + (clients * 2),
+                    "server.tomcat.accept-count=" + clients)) {
+                YearMonth lastMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(1);
+                List<UUID> ids = application.seedProviders(providers, lastMonth.minusMonths(1).atDay(1).atStartOfDay());
+                application.seedPaidBills(ids, lastMonth, 1);
+
+                String base = "http://localhost:" + application.port() + "/api";
+                run(mode, base, lastMonth, clients, warmup, false);
+                results.add(run(mode, base, lastMonth, clients, seconds, true));
+            }
+        }
+
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "threads", "req/s", "p50 us", "p99 us", "p99.9 us", "max us", "shed %", "errors");
+        for (Result r : results) {
+            System.out.printf("%-10s %10.0f %10d %10d %10d %10d %8.2f %8d%n", r.mode(), r.requests() / r.seconds(),
+                    r.percentileMicros(0.50), r.percentileMicros(0.99), r.percentileMicros(0.999),
+                    r.percentileMicros(1.0), 100.0 * r.shed() / Math.max(1, r.requests()), r.errors());
+        }
+    }
+
+    private static Result run(String mode, String base, YearMonth month, int clients, int seconds, boolean measure)
+            throws InterruptedException {
+        ExecutorService httpThreads = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient http = HttpClient.newBuilder().executor(httpThreads).build();
+        HttpRequest read = HttpRequest.newBuilder(URI.create(base + "/bills/page?yearMonth=" + month + "&limit=50"))
+                .GET().build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong shed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(clients);
+
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            clientThreads.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                Random random = new Random(client);
+                try {
+                    while (running.get()) {
+                        HttpRequest request = random.nextInt(10) == 0 ? createProvider(base, client, count) : read;
+                        long started = System.nanoTime();
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 503) {
+                                shed.incrementAndGet();
+                            } else if (status >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - started;
+                    }
+                } finally {
+                    latencies.add(Arrays.copyOf(samples, count));
+                    done.countDown();
+                }
+            });
+        }
+
+        long started = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+        double elapsed = (System.nanoTime() - started) / 1_000_000_000d;
+        clientThreads.shutdown();
+        httpThreads.shutdown();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (measure) {
+            System.out.printf("%s: %d requests in %.1f s%n", mode, all.length, elapsed);
+        }
+        return new Result(mode, all.length, shed.get(), errors.get(), elapsed, all);
+    }
+
+    private static HttpRequest createProvider(String base, int client, int n) {
+        String body = "{\"name\":\"Load " + client + "-" + n + "\",\"frequency\":\"MONTHLY\",\"dueDay\":" + (1 + n % 28) + "}";
+        return HttpRequest.newBuilder(URI.create(base + "/providers"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
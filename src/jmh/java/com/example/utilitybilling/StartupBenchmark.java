@@ -0,0 +1,121 @@
+package com.example.utilitybilling;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+// Time from JVM launch to the first answered request (GET /api/providers, which also pays for any bean created
+// lazily on the way), for the boot jar started as is, with the prod profile, with AOT and with the CDS archive.
+// Every run is a fresh JVM with its own in-memory database; the variants take turns so that drift of the machine
+// spreads over all of them. Not a JMH benchmark: run with ./gradlew startupBenchmark [-Pstartup.args="--runs=10"]
+public final class StartupBenchmark {
+
+    private record Variant(String name, List<String> command) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of("runs", "5", "warmup", "1", "timeout", "120"));
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        for (String required : List.of("java", "jar", "extracted", "archive")) {
+            if (!options.containsKey(required)) {
+                throw new IllegalArgumentException("Missing --" + required + "=...; run through ./gradlew startupBenchmark");
+            }
+        }
+        String java = options.get("java");
+        String jar = options.get("jar");
+        int runs = Integer.parseInt(options.get("runs"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.get("timeout")));
+
+        List<Variant> variants = List.of(
+                new Variant("default", List.of(java, "-jar", jar)),
+                new Variant("prod", List.of(java, "-Dspring.profiles.active=prod", "-jar", jar)),
+                new Variant("prod+aot", List.of(java, "-Dspring.aot.enabled=true",
+                        "-Dspring.profiles.active=prod", "-jar", jar)),
+                new Variant("prod+aot+cds", List.of(java, "-XX:SharedArchiveFile=" + options.get("archive"),
+                        "-Dspring.aot.enabled=true", "-Dspring.profiles.active=prod", "-jar", options.get("extracted"))));
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        Map<String, long[]> samples = new LinkedHashMap<>();
+        variants.forEach(v -> samples.put(v.name(), new long[runs]));
+        for (int run = -warmup; run < runs; run++) {
+            for (Variant variant : variants) {
+                long millis = firstRequestMillis(http, variant, timeout);
+                if (run >= 0) {
+                    samples.get(variant.name())[run] = millis;
+                    System.out.printf("%s run %d: %d ms%n", variant.name(), run + 1, millis);
+                }
+            }
+        }
+
+        long baseline = median(samples.get(variants.get(0).name()));
+        System.out.printf("%n%-14s %10s %10s %10s %10s%n", "variant", "median ms", "min ms", "max ms", "vs default");
+        samples.forEach((name, millis) -> {
+            long median = median(millis);
+            System.out.printf("%-14s %10d %10d %10d %9.0f%%%n", name, median,
+                    Arrays.stream(millis).min().orElse(0), Arrays.stream(millis).max().orElse(0),
+                    100.0 * (median - baseline) / baseline);
+        });
+        long fastest = median(samples.get(variants.get(variants.size() - 1).name()));
+        System.out.printf("%nTarget (time to first request at most half the default): %s%n",
+                fastest * 2 <= baseline ? "met" : "not met");
+    }
+
+    // Launches the variant on a free port and polls until the first request succeeds
+    private static long firstRequestMillis(HttpClient http, Variant variant, Duration timeout) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(variant.command());
+        command.add("--server.port=" + port);
+        Path log = Files.createTempFile("startup-" + variant.name().replace('+', '-'), ".log");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/providers"))
+                .timeout(timeout)
+                .GET().build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = started + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant.name() + " exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long millis = (System.nanoTime() - started) / 1_000_000;
+                        Files.deleteIfExists(log);
+                        return millis;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException(variant.name() + " did not answer within " + timeout + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
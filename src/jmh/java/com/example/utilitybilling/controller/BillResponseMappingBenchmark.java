@@ -0,0 +1,55 @@
+package com.example.utilitybilling.controller;
+
+import com.example.utilitybilling.dto.BillResponse;
+import com.example.utilitybilling.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Entity to DTO mapping as done for every bill the API returns
+// Run with: ./gradlew jmh -Pjmh.includes=BillResponseMappingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillResponseMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int bills;
+
+    private UtilityBillingController controller;
+    private List<Bill> billList;
+
+    @Setup
+    public void setUp() {
+        // The mapping touches none of the controller's collaborators
+        controller = new UtilityBillingController(null, null, null, null, null);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        billList = new ArrayList<>(bills);
+        for (int i = 0; i < bills; i++) {
+            billList.add(Bill.builder()
+                    .id(UUID.randomUUID())
+                    .providerId(UUID.randomUUID())
+                    .amount(Money.of(BigDecimal.valueOf(1000 + i % 9000, 2)))
+                    .status(BillStatus.NOT_ARRIVED)
+                    .dueDate(now.plusDays(i % 28))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void toBillResponse(Blackhole blackhole) {
+        for (Bill bill : billList) {
+            BillResponse response = controller.toBillResponse(bill);
+            blackhole.consume(response);
+        }
+    }
+}
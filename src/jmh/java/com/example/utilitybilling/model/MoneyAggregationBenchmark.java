@@ -0,0 +1,142 @@
+package com.example.utilitybilling.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Amount aggregation over BigDecimal values (as loaded from DECIMAL(19, 4) columns) against Money units in a long[]:
+// a plain total, totals per month bucket, a trailing moving average and CSV formatting.
+// Run with: ./gradlew jmh -Pjmh.includes=MoneyAggregationBenchmark -Pjmh.args='-prof gc'
+// (gc.alloc.rate.norm shows the bytes allocated per operation)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MoneyAggregationBenchmark {
+
+    private static final int MONTHS = 24;
+    private static final int WINDOW = 3;
+
+    @Param({"10000", "1000000"})
+    public int amounts;
+
+    private BigDecimal[] decimals;
+    private long[] units;
+    private int[] monthOf;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimals = new BigDecimal[amounts];
+        units = new long[amounts];
+        monthOf = new int[amounts];
+        for (int i = 0; i < amounts; i++) {
+            // Scale 4, as the columns return them
+            decimals[i] = BigDecimal.valueOf(random.nextInt(100_000_000), Money.SCALE);
+            units[i] = Money.toUnits(decimals[i]);
+            monthOf[i] = i % MONTHS;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimals) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long totalUnits() {
+        return Money.sum(units, 0, units.length);
+    }
+
+    @Benchmark
+    public BigDecimal[] monthlyMovingAverageBigDecimal() {
+        BigDecimal[] totals = new BigDecimal[MONTHS];
+        Arrays.fill(totals, BigDecimal.ZERO);
+        for (int i = 0; i < decimals.length; i++) {
+            totals[monthOf[i]] = totals[monthOf[i]].add(decimals[i]);
+        }
+        BigDecimal[] averages = new BigDecimal[MONTHS - WINDOW + 1];
+        for (int m = 0; m < averages.length; m++) {
+            BigDecimal window = BigDecimal.ZERO;
+            for (int w = 0; w < WINDOW; w++) {
+                window = window.add(totals[m + w]);
+            }
+            averages[m] = window.divide(BigDecimal.valueOf(WINDOW), Money.SCALE, RoundingMode.HALF_UP);
+        }
+        return averages;
+    }
+
+    @Benchmark
+    public long[] monthlyMovingAverageUnits() {
+        long[] totals = new long[MONTHS];
+        for (int i = 0; i < units.length; i++) {
+            totals[monthOf[i]] = Math.addExact(totals[monthOf[i]], units[i]);
+        }
+        // Running window sum: one add and one subtract per month
+        long[] averages = new long[MONTHS - WINDOW + 1];
+        long window = Money.sum(totals, 0, WINDOW);
+        for (int m = 0; ; m++) {
+            averages[m] = Money.divide(window, WINDOW);
+            if (m + WINDOW == MONTHS) {
+                return averages;
+            }
+            window += totals[m + WINDOW] - totals[m];
+        }
+    }
+
+    @Benchmark
+    public void formatBigDecimal(Blackhole blackhole) throws IOException {
+        Writer writer = new BlackholeWriter(blackhole);
+        for (BigDecimal amount : decimals) {
+            writer.write(amount.toPlainString());
+        }
+    }
+
+    @Benchmark
+    public void formatUnits(Blackhole blackhole) throws IOException {
+        Writer writer = new BlackholeWriter(blackhole);
+        for (long amount : units) {
+            writer.write(new Money(amount).toString());
+        }
+    }
+
+    // Swallows the formatted text, so only the formatting is measured
+    private static final class BlackholeWriter extends Writer {
+
+        private final Blackhole blackhole;
+
+        private BlackholeWriter(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(String text) {
+            blackhole.consume(text);
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            blackhole.consume(buffer);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
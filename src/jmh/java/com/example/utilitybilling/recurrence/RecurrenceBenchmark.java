@@ -0,0 +1,106 @@
+package com.example.utilitybilling.recurrence;
+
+import com.example.utilitybilling.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// "Which providers bill in each of the next 12 months": the former YearMonth-based rule against the
+// allocation-free epoch-month rule and the precomputed index.
+// Run with: ./gradlew jmh -Pjmh.includes=RecurrenceBenchmark -Pjmh.args='-prof gc' to include allocation rates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceBenchmark {
+
+    private static final int HORIZON_MONTHS = 12;
+
+    @Param({"10000", "100000"})
+    public int providers;
+
+    private List<UtilityProvider> providerList;
+    private RecurrenceIndex index;
+    private int[] dueBuffer;
+    private LocalDate firstMonth;
+    private int firstEpochMonth;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        BillingFrequency[] frequencies = BillingFrequency.values();
+        providerList = new ArrayList<>(providers);
+        for (int i = 0; i < providers; i++) {
+            providerList.add(UtilityProvider.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .frequency(frequencies[random.nextInt(frequencies.length)])
+                    .dueDay(1 + random.nextInt(28))
+                    .createdAt(LocalDateTime.of(2015 + random.nextInt(10), 1 + random.nextInt(12), 1, 0, 0))
+                    .build());
+        }
+        index = RecurrenceIndex.of(providerList);
+        dueBuffer = new int[providers];
+        firstMonth = LocalDate.of(2026, 1, 1);
+        firstEpochMonth = BillingRecurrence.epochMonth(2026, 1);
+    }
+
+    @Benchmark
+    public void legacyShouldGenerate(Blackhole blackhole) {
+        for (int m = 0; m < HORIZON_MONTHS; m++) {
+            LocalDate target = firstMonth.plusMonths(m);
+            for (UtilityProvider provider : providerList) {
+                blackhole.consume(legacyShouldGenerateBillForMonth(provider, target));
+            }
+        }
+    }
+
+    @Benchmark
+    public void epochMonthRule(Blackhole blackhole) {
+        for (int m = 0; m < HORIZON_MONTHS; m++) {
+            int month = firstEpochMonth + m;
+            for (UtilityProvider provider : providerList) {
+                blackhole.consume(BillingRecurrence.isDue(
+                        BillingRecurrence.epochMonth(provider.getCreatedAt()), provider.getFrequency().getIntervalMonths(), month));
+            }
+        }
+    }
+
+    @Benchmark
+    public int indexLookup() {
+        int total = 0;
+        for (int m = 0; m < HORIZON_MONTHS; m++) {
+            total += index.providersDueIn(firstEpochMonth + m, dueBuffer);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public RecurrenceIndex indexBuild() {
+        return RecurrenceIndex.of(providerList);
+    }
+
+    // The rule as it was before the recurrence engine, kept as the baseline
+    private static boolean legacyShouldGenerateBillForMonth(UtilityProvider provider, LocalDate targetDate) {
+        YearMonth targetYM = YearMonth.from(targetDate);
+        YearMonth createdYM = YearMonth.from(provider.getCreatedAt());
+
+        if (targetYM.isBefore(createdYM)) return false;
+
+        switch (provider.getFrequency()) {
+            case MONTHLY:
+                return true;
+            case BI_MONTHLY:
+                int monthsDiff = (targetYM.getYear() - createdYM.getYear()) * 12 + (targetYM.getMonthValue() - createdYM.getMonthValue());
+                return monthsDiff % 2 == 0;
+            case YEARLY:
+                return targetYM.getMonthValue() == createdYM.getMonthValue();
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.BenchmarkApplication;
+import com.example.utilitybilling.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Month reads against a growing PAYED history, with the history kept in the bill table or archived
+// (everything before the previous month moved to segments). The current month should cost the same
+// however many history months there are once they are archived; archived months pay for decoding instead.
+// Run with: ./gradlew jmh -Pjmh.includes=BillArchiveBenchmark [-Pjmh.args='-p historyMonths=120']
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BillArchiveBenchmark {
+
+    @Param({"10000"})
+    public int providers;
+
+    // Months of PAYED history per provider before the current one
+    @Param({"12", "60"})
+    public int historyMonths;
+
+    @Param({"false", "true"})
+    public boolean archived;
+
+    private BenchmarkApplication application;
+    private UtilityBillingService billingService;
+    private String currentMonth;
+    private String oldestMonth;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start("archive-bench", "billing.archive.min-age=P1M");
+        billingService = application.bean(UtilityBillingService.class);
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth firstHistoryMonth = current.minusMonths(historyMonths);
+        List<UUID> ids = application.seedProviders(providers, firstHistoryMonth.atDay(1).atStartOfDay());
+        application.seedPaidBills(ids, firstHistoryMonth, historyMonths + 1);
+        if (archived) {
+            int moved = application.bean(BillArchive.class).archive();
+            System.out.printf("%narchived %d bills%n", moved);
+        }
+
+        currentMonth = current.toString();
+        oldestMonth = firstHistoryMonth.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public UtilityBillingService.KeysetPage<Bill> currentMonthPage() {
+        return billingService.findBillsPage(currentMonth, 100, null);
+    }
+
+    @Benchmark
+    public UtilityBillingService.KeysetPage<Bill> oldestMonthPage() {
+        return billingService.findBillsPage(oldestMonth, 100, null);
+    }
+}
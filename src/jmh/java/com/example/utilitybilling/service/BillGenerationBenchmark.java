@@ -0,0 +1,124 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.BenchmarkApplication;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import com.example.utilitybilling.repository.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Compares the chunked monthly generation, single-threaded and partitioned over the worker pool,
+// against the former per-provider loop (findAll + one lookup and one save per provider in one transaction).
+// The chunked paths write insert-or-ignore batches; the baseline keeps its lookup-then-save shape.
+// Run with: ./gradlew jmh -Pjmh.includes=BillGenerationBenchmark [-Pjmh.args='-p providers=250000']
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BillGenerationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int providers;
+
+    private BenchmarkApplication application;
+    private UtilityBillingService billingService;
+    private MonthlyBillGenerator billGenerator;
+    private UtilityProviderRepository providerRepository;
+    private BillRepository billRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics statistics;
+    private String lastRun;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        application = BenchmarkApplication.start("generation-bench");
+        billingService = application.bean(UtilityBillingService.class);
+        billGenerator = application.bean(MonthlyBillGenerator.class);
+        providerRepository = application.bean(UtilityProviderRepository.class);
+        billRepository = application.bean(BillRepository.class);
+        entityManager = application.bean(EntityManager.class);
+        transactionTemplate = application.bean(TransactionTemplate.class);
+        jdbcTemplate = application.jdbc();
+        statistics = application.statistics();
+
+        application.seedProviders(providers, LocalDateTime.now(ZoneOffset.UTC).minusYears(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        application.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearBills() {
+        jdbcTemplate.update("DELETE FROM bill");
+        jdbcTemplate.update("DELETE FROM generation_partition_lease");
+        jdbcTemplate.update("DELETE FROM bill_generation_run");
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary");
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        statistics.clear();
+    }
+
+    @TearDown(Level.Invocation)
+    public void reportStatements() {
+        System.out.printf("%n%s providers=%d preparedStatements=%d entityInserts=%d queries=%d%n",
+                lastRun, providers, statistics.getPrepareStatementCount(),
+                statistics.getEntityInsertCount(), statistics.getQueryExecutionCount());
+    }
+
+    @Benchmark
+    public MonthlyBillGenerator.GenerationResult chunked() {
+        lastRun = "chunked";
+        return billGenerator.generateForMonth(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    @Benchmark
+    public PartitionedBillGeneration.RunReport partitioned() {
+        lastRun = "partitioned";
+        return billingService.createBillsForCurrentMonth();
+    }
+
+    @Benchmark
+    public int perProviderBaseline() {
+        lastRun = "perProviderBaseline";
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.atEndOfMonth().atTime(23, 59, 59);
+        return transactionTemplate.execute(status -> {
+            int created = 0;
+            for (UtilityProvider provider : providerRepository.findAll()) {
+                if (!entityManager.createQuery("select b from Bill b where b.providerId = :providerId " +
+                                "and b.dueDate between :start and :end", Bill.class)
+                        .setParameter("providerId", provider.getId())
+                        .setParameter("start", start)
+                        .setParameter("end", end)
+                        .getResultList().isEmpty()
+                        || !BillingRecurrence.isDue(provider, month)) {
+                    continue;
+                }
+                LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+                billRepository.save(Bill.builder()
+                        .id(UUID.randomUUID())
+                        .providerId(provider.getId())
+                        .status(BillStatus.NOT_ARRIVED)
+                        .dueDate(month.atDay(provider.getDueDay()).atStartOfDay())
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build());
+                created++;
+            }
+            return created;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.BenchmarkApplication;
+import com.example.utilitybilling.model.*;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Provider + month bill lookups on a large bill table (default 100k providers x 100 months = 10M bills),
+// before and after V5: 'legacy' puts back the single-column provider_id / due_date indexes and drops the
+// composite and unique ones, 'composite' is the current schema. Loading entities is compared with an
+// index-only existence check in plain SQL.
+// The setup prints EXPLAIN for both queries, so the plans of a run sit next to its timings.
+// Run with: ./gradlew jmh -Pjmh.includes=BillLookupBenchmark [-Pjmh.args='-p months=12']
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx10g")
+public class BillLookupBenchmark {
+
+    private static final String LOOKUP = "SELECT * FROM bill WHERE provider_id = ? AND due_date BETWEEN ? AND ?";
+    private static final String LOAD = "select b from Bill b where b.providerId = :providerId " +
+            "and b.dueDate between :start and :end";
+    private static final String EXISTS = "SELECT 1 FROM bill WHERE provider_id = ? AND due_date BETWEEN ? AND ? " +
+            "FETCH FIRST 1 ROWS ONLY";
+
+    @Param({"100000"})
+    public int providers;
+
+    // Months of PAYED history per provider; bill count = providers * months
+    @Param({"100"})
+    public int months;
+
+    @Param({"legacy", "composite"})
+    public String indexes;
+
+    private BenchmarkApplication application;
+    private EntityManager entityManager;
+    private JdbcTemplate jdbc;
+    private List<UUID> providerIds;
+    private LocalDateTime monthStart;
+    private LocalDateTime monthEnd;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start("lookup-bench");
+        entityManager = application.bean(EntityManager.class);
+
+        YearMonth firstMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(months);
+        providerIds = new ArrayList<>(application.seedProviders(providers, firstMonth.atDay(1).atStartOfDay()));
+        application.seedPaidBills(providerIds, firstMonth, months);
+        Collections.shuffle(providerIds, new Random(42));
+
+        jdbc = application.jdbc();
+        if (indexes.equals("legacy")) {
+            jdbc.execute("DROP INDEX uq_bill_provider_period");
+            jdbc.execute("DROP INDEX idx_bill_provider_due_date");
+            jdbc.execute("CREATE INDEX idx_bill_provider_id ON bill(provider_id)");
+            jdbc.execute("CREATE INDEX idx_bill_due_date ON bill(due_date)");
+        }
+        jdbc.execute("ANALYZE");
+
+        YearMonth month = firstMonth.plusMonths(months / 2);
+        monthStart = month.atDay(1).atStartOfDay();
+        monthEnd = month.atEndOfMonth().atTime(23, 59, 59);
+        for (String query : List.of(LOOKUP, EXISTS)) {
+            String plan = jdbc.queryForObject("EXPLAIN " + query, String.class, providerIds.get(0), monthStart, monthEnd);
+            System.out.println("[" + indexes + "] " + plan);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public List<Bill> loadEntities() {
+        return entityManager.createQuery(LOAD, Bill.class)
+                .setParameter("providerId", nextProvider())
+                .setParameter("start", monthStart)
+                .setParameter("end", monthEnd)
+                .getResultList();
+    }
+
+    @Benchmark
+    public boolean existsCheck() {
+        return Boolean.TRUE.equals(jdbc.query(EXISTS, (ResultSetExtractor<Boolean>) ResultSet::next, nextProvider(), monthStart, monthEnd));
+    }
+
+    private UUID nextProvider() {
+        next = (next + 1) % providerIds.size();
+        return providerIds.get(next);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.BenchmarkApplication;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.repository.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Read hot paths of UtilityBillingService against a seeded H2 database:
+// past months from the bill table, future months projected cold and from the projection cache,
+// and the in-memory projection step on its own.
+// Run with: ./gradlew jmh -Pjmh.includes=BillQueryBenchmark [-Pjmh.args='-p providers=1000 -p historyMonths=24']
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BillQueryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int providers;
+
+    // Months of PAYED history per provider; bill count = providers * historyMonths
+    @Param({"3"})
+    public int historyMonths;
+
+    private BenchmarkApplication application;
+    private UtilityBillingService billingService;
+    private BillProjectionCache projectionCache;
+    private List<UtilityProvider> providerList;
+    private String pastMonth;
+    private String futureMonth;
+    private LocalDate futureMonthStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start("query-bench");
+        billingService = application.bean(UtilityBillingService.class);
+        projectionCache = application.bean(BillProjectionCache.class);
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth firstHistoryMonth = current.minusMonths(historyMonths);
+        List<UUID> ids = application.seedProviders(providers, firstHistoryMonth.atDay(1).atStartOfDay());
+        application.seedPaidBills(ids, firstHistoryMonth, historyMonths);
+
+        providerList = application.bean(UtilityProviderRepository.class).findAll();
+        pastMonth = current.minusMonths(1).toString();
+        futureMonth = current.plusMonths(1).toString();
+        futureMonthStart = current.plusMonths(1).atDay(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ColdProjection {
+        @Setup(Level.Invocation)
+        public void evict(BillQueryBenchmark benchmark) {
+            benchmark.projectionCache.invalidateAll();
+        }
+    }
+
+    @Benchmark
+    public List<Bill> pastMonth() {
+        return billingService.findBillsByYearMonth(pastMonth);
+    }
+
+    @Benchmark
+    public List<Bill> futureMonthCold(ColdProjection cold) {
+        return billingService.findBillsByYearMonth(futureMonth);
+    }
+
+    @Benchmark
+    public List<Bill> futureMonthCached() {
+        return billingService.findBillsByYearMonth(futureMonth);
+    }
+
+    @Benchmark
+    public List<Bill> generateBillsForMonth() {
+        return billingService.generateBillsForMonth(providerList, futureMonthStart);
+    }
+}
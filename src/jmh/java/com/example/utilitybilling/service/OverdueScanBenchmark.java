@@ -0,0 +1,66 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.BenchmarkApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// One overdue scan pass over a window holding the bills of a single unpaid month, against a growing PAYED history.
+// The pass should cost the same for any historyMonths: it reads the unpaid range of the (status, due_date) index.
+// Run with: ./gradlew jmh -Pjmh.includes=OverdueScanBenchmark [-Pjmh.args='-p historyMonths=120']
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class OverdueScanBenchmark {
+
+    @Param({"100000"})
+    public int providers;
+
+    // Months of PAYED history per provider before the unpaid month
+    @Param({"3", "36"})
+    public int historyMonths;
+
+    private BenchmarkApplication application;
+    private OverdueBillScanner scanner;
+    private JdbcTemplate jdbcTemplate;
+    private Timestamp unpaidMonthStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start("overdue-bench");
+        scanner = application.bean(OverdueBillScanner.class);
+        jdbcTemplate = application.jdbc();
+
+        // The previous month stays unpaid, so all its bills are overdue once the grace period has passed
+        YearMonth unpaidMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(1);
+        YearMonth firstHistoryMonth = unpaidMonth.minusMonths(historyMonths);
+        List<UUID> ids = application.seedProviders(providers, firstHistoryMonth.atDay(1).atStartOfDay());
+        application.seedPaidBills(ids, firstHistoryMonth, historyMonths + 1);
+        jdbcTemplate.update("UPDATE bill SET status = 'NOT_ARRIVED' WHERE billing_period = ?",
+                unpaidMonth.getYear() * 100 + unpaidMonth.getMonthValue());
+        unpaidMonthStart = Timestamp.valueOf(unpaidMonth.atDay(1).atStartOfDay().minusSeconds(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void rewindWatermark() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("UPDATE overdue_scan_watermark SET scanned_through = ? WHERE id = 1", unpaidMonthStart);
+    }
+
+    @Benchmark
+    public int scan() {
+        return scanner.scan();
+    }
+}
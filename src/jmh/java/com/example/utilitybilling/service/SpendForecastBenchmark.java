@@ -0,0 +1,81 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.BenchmarkApplication;
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.recurrence.SpendForecast;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// 10-year spend forecast over all providers: from the warm schedule snapshot with both estimates, and the cold
+// path that loads the snapshot (provider scan joined with the paid history of the summary) first.
+// The former way, one findBillsByYearMonth per month, is left out: it builds every Bill of the horizon.
+// Run with: ./gradlew jmh -Pjmh.includes=SpendForecastBenchmark [-Pjmh.args='-p providers=100000']
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SpendForecastBenchmark {
+
+    private static final int HORIZON_MONTHS = 120;
+
+    @Param({"1000000"})
+    public int providers;
+
+    // Months of PAYED history per provider feeding the paid averages
+    @Param({"3"})
+    public int historyMonths;
+
+    private BenchmarkApplication application;
+    private SpendForecastService forecastService;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private BillingProperties properties;
+    private YearMonth from;
+    private YearMonth to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start("forecast-bench");
+        forecastService = application.bean(SpendForecastService.class);
+        jdbcTemplate = application.bean(NamedParameterJdbcTemplate.class);
+        properties = application.bean(BillingProperties.class);
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth firstHistoryMonth = current.minusMonths(historyMonths);
+        List<UUID> ids = application.seedProviders(providers, firstHistoryMonth.atDay(1).atStartOfDay());
+        application.seedPaidBills(ids, firstHistoryMonth, historyMonths);
+        application.bean(BillSummaryService.class).rebuild();
+
+        from = current;
+        to = current.plusMonths(HORIZON_MONTHS - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public SpendForecast defaultAmounts() {
+        return forecastService.forecast(from, to, SpendForecastService.Estimate.DEFAULT_AMOUNT, null);
+    }
+
+    @Benchmark
+    public SpendForecast paidAverages() {
+        return forecastService.forecast(from, to, SpendForecastService.Estimate.PAID_AVERAGE, null);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1, time = 1)
+    @Measurement(iterations = 3, time = 1)
+    public SpendForecast coldSnapshot() {
+        return new SpendForecastService(jdbcTemplate, properties, new SimpleMeterRegistry())
+                .forecast(from, to, SpendForecastService.Estimate.PAID_AVERAGE, null);
+    }
+}
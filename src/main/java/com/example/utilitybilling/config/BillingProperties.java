@@ -0,0 +1,189 @@
+package com.example.utilitybilling.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Period;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "billing")
+public class BillingProperties {
+
+    private final Generation generation = new Generation();
+    private final ProjectionCache projectionCache = new ProjectionCache();
+    private final Drafts drafts = new Drafts();
+    private final Tasks tasks = new Tasks();
+    private final Concurrency concurrency = new Concurrency();
+    private final Events events = new Events();
+    private final Retry retry = new Retry();
+    private final Archive archive = new Archive();
+    private final Forecast forecast = new Forecast();
+    private final Overdue overdue = new Overdue();
+
+    @Getter
+    @Setter
+    public static class Generation {
+        // Providers loaded, checked and inserted per transaction by the monthly run
+        private int chunkSize = 500;
+
+        // Hash partitions of the provider id keyspace; each is leased to a single node per run
+        private int partitions = 16;
+
+        // Worker threads per node working on claimed partitions
+        private int workers = Runtime.getRuntime().availableProcessors();
+
+        // How long a claimed partition stays reserved without progress before another node may take it over
+        private Duration leaseDuration = Duration.ofMinutes(5);
+
+        // Months before the current one that startup checks for missing or unfinished runs
+        private int catchUpMonths = 2;
+
+        // Resume missed or unfinished runs when the application starts
+        private boolean catchUpOnStartup = true;
+
+        // Identifies this instance as lease owner
+        private String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID();
+    }
+
+    @Getter
+    @Setter
+    public static class ProjectionCache {
+        // Number of projected future months kept
+        private long maximumSize = 24;
+
+        // Upper bound on the age of a cached projection
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Drafts {
+        // Months after the current one whose DRAFT bills are persisted ahead; 0 projects all future months
+        private int horizonMonths = 12;
+    }
+
+    @Getter
+    @Setter
+    public static class Tasks {
+        // Delay between polls of the bill generation queue
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        // Tasks claimed and processed together (one set-based generation pass per month)
+        private int batchSize = 100;
+
+        // Attempts before a task is parked as FAILED
+        private int maxAttempts = 5;
+
+        // Delay before the first retry, doubled on every further attempt
+        private Duration retryBackoff = Duration.ofSeconds(10);
+
+        // How long a claimed batch stays reserved before another poller may take it over
+        private Duration leaseDuration = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Events {
+        // Delay between relay polls; commits that write events also wake the relay right away
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        // Events handed to the sinks per relay batch, and read per SSE poll
+        private int batchSize = 500;
+
+        // How long the relay lease outlives its last renewal; it is renewed per batch, so it must exceed the time
+        // the sinks take for one. Another instance takes the relay over once the holder let it run out.
+        private Duration relayLease = Duration.ofSeconds(30);
+
+        // How long the SSE poll waits for a missing outbox id (taken by a transaction that has not committed yet)
+        // before it takes the id as rolled back and moves past it
+        private Duration settleDelay = Duration.ofSeconds(2);
+
+        // How long published events stay available for replay before they are purged
+        private Duration retention = Duration.ofDays(1);
+
+        // Additional sink besides the SSE subscribers: none, local (in-process queue) or file (NDJSON stub)
+        private String sink = "none";
+
+        // Capacity of the local sink's queue
+        private int localQueueCapacity = 10_000;
+
+        // Target of the file sink
+        private String file = "billing-events.ndjson";
+
+        // Lifetime of an SSE subscription; clients reconnect with Last-Event-ID
+        private Duration subscriptionTimeout = Duration.ofMinutes(30);
+
+        // Events queued per SSE subscriber, and replayed at most on a reconnect. A subscriber falling this far
+        // behind is closed once its queue is sent and catches up by reconnecting with Last-Event-ID.
+        private int subscriberQueueCapacity = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Retry {
+        // Attempts of a write that keeps losing optimistic races before it is answered with 409
+        private int maxAttempts = 5;
+
+        // Backoff window before the first retry, doubled on every further one up to maxBackoff
+        private Duration initialBackoff = Duration.ofMillis(20);
+
+        private Duration maxBackoff = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+        // PAYED bills due before the month this far back move to the archive (whole months). Reads look the
+        // archive up only before that month, so raising it once segments exist hides the months it passes.
+        private Period minAge = Period.ofMonths(24);
+
+        // Bills per compressed segment, and per archival transaction
+        private int segmentSize = 5_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Forecast {
+        // Longest horizon of a spend forecast
+        private int maxMonths = 120;
+
+        // Months before the current one whose PAYED bills make up a provider's historical average
+        private int averageMonths = 12;
+
+        // Age after which the in-memory provider schedules are reloaded (in the background, the old
+        // snapshot keeps answering meanwhile)
+        private Duration snapshotTtl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Overdue {
+        // Time after the due date before an unpaid bill counts as overdue
+        private Duration grace = Duration.ofDays(1);
+
+        // How far back the very first scan looks; later scans continue from the watermark
+        private Duration initialLookback = Duration.ofDays(7);
+    }
+
+    @Getter
+    @Setter
+    public static class Concurrency {
+        // Bound the API requests in flight when request threads are virtual, so they queue here
+        // instead of piling up on the connection pool; no effect with platform threads
+        private boolean enabled = true;
+
+        // Requests in flight; 0 sizes the limit to the connection pool minus the connections of the
+        // generation workers and the scheduling pool
+        private int maxConcurrentRequests = 0;
+
+        // How long a request waits for a slot before it is answered with 503
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.utilitybilling.config;
+
+// Hibernate second-level cache regions; sizes and expiry of each are set in application.conf
+public final class CacheRegions {
+
+    // UtilityProvider entities by id
+    public static final String PROVIDER = "utilityProvider";
+
+    // Results of the provider list query (ids, entities come from PROVIDER)
+    public static final String PROVIDER_LIST = "providerList";
+
+    // Bills of a month from findByDueDateBetween (full rows, Bill itself is not cached)
+    public static final String BILLS_BY_MONTH = "billsByMonth";
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.utilitybilling.controller;
+
+import com.example.utilitybilling.events.SseEventBroadcaster;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Tag(name = "Change Events API", description = "Subscribe to bill and provider changes")
+public class EventStreamController {
+
+    private final SseEventBroadcaster broadcaster;
+
+    @Operation(summary = "Server-sent events of bill and provider changes (BILL_CREATED, BILL_UPDATED, " +
+            "BILL_DELETED, BILL_OVERDUE, PROVIDER_CREATED, PROVIDER_UPDATED); reconnect with Last-Event-ID to replay missed events")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return broadcaster.subscribe(lastEventId);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.utilitybilling.controller;
+
+import com.example.utilitybilling.dto.GenerationRunResponse;
+import com.example.utilitybilling.model.BillGenerationRun;
+import com.example.utilitybilling.service.BillArchive;
+import com.example.utilitybilling.service.DraftBillHorizon;
+import com.example.utilitybilling.service.PartitionedBillGeneration;
+import com.example.utilitybilling.service.UtilityBillingService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/generation-runs")
+@RequiredArgsConstructor
+@Tag(name = "Bill Generation Admin API", description = "Inspect and trigger monthly bill generation runs")
+public class GenerationRunController {
+
+    private final PartitionedBillGeneration partitionedGeneration;
+    private final UtilityBillingService billingService;
+    private final DraftBillHorizon draftHorizon;
+    private final BillArchive billArchive;
+
+    @Operation(summary = "Ledger of the latest monthly bill generation runs")
+    @GetMapping
+    public List<GenerationRunResponse> getRuns() {
+        return partitionedGeneration.recentRuns().stream().map(this::toRunResponse).collect(Collectors.toList());
+    }
+
+    @Operation(summary = "Ledger entry of the bill generation run of a year-month (yyyy-MM)")
+    @GetMapping("/{yearMonth}")
+    public ResponseEntity<GenerationRunResponse> getRun(@PathVariable String yearMonth) {
+        return partitionedGeneration.findRun(billingService.parseYearMonth(yearMonth))
+                .map(run -> ResponseEntity.ok(toRunResponse(run)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Start or resume the bill generation of a year-month (yyyy-MM) in the background; " +
+            "months of the draft horizon get DRAFT bills; completed work is not repeated")
+    @PostMapping("/{yearMonth}")
+    public ResponseEntity<Void> triggerRun(@PathVariable String yearMonth) {
+        YearMonth month = billingService.parseYearMonth(yearMonth);
+        if (month.isAfter(draftHorizon.horizonEnd(YearMonth.now(ZoneOffset.UTC)))) {
+            throw new IllegalArgumentException("Bills beyond the draft horizon are projected, not generated");
+        }
+        // Generation only checks the live table, so it would duplicate archived PAYED bills
+        if (!month.isAfter(billArchive.cutoff())) {
+            throw new IllegalArgumentException("Bills up to " + billArchive.cutoff() + " may be archived, not generated");
+        }
+        partitionedGeneration.runInBackground(month);
+        return ResponseEntity.accepted().build();
+    }
+
+    private GenerationRunResponse toRunResponse(BillGenerationRun run) {
+        return GenerationRunResponse.builder()
+                .runMonth(run.getRunMonth())
+                .status(run.getStatus())
+                .partitionCount(run.getPartitionCount())
+                .partitionsCompleted(run.getPartitionsCompleted())
+                .partitionsFailed(run.getPartitionsFailed())
+                .providersScanned(run.getProvidersScanned())
+                .billsCreated(run.getBillsCreated())
+                .startedAt(run.getStartedAt())
+                .finishedAt(run.getFinishedAt())
+                .updatedAt(run.getUpdatedAt())
+                .build();
+    }
+}
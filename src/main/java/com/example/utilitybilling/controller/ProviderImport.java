@@ -0,0 +1,125 @@
+package com.example.utilitybilling.controller;
+
+import com.example.utilitybilling.dto.*;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.service.UtilityBillingService;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// One bulk provider import: rows are validated as they are read, valid ones are handed to the service
+// in chunks, and rejected rows are collected for the response without stopping the import.
+// A chunk the database refuses is reported row by row; the chunks before it stay imported.
+class ProviderImport {
+
+    static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final UtilityBillingService billingService;
+    private final Validator validator;
+    private final List<UtilityProvider> chunk = new ArrayList<>(CHUNK_SIZE);
+    private final List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+    private final List<ProviderImportError> errors = new ArrayList<>();
+    private long imported;
+    private long rejected;
+    private long billsCreated;
+
+    ProviderImport(UtilityBillingService billingService, Validator validator) {
+        this.billingService = billingService;
+        this.validator = validator;
+    }
+
+    void accept(long line, ProviderCreateRequest request) {
+        if (request == null) {
+            reject(line, "empty row");
+            return;
+        }
+        Set<ConstraintViolation<ProviderCreateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            reject(line, violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+        chunk.add(UtilityProvider.builder()
+                .name(request.getName())
+                .frequency(request.getFrequency())
+                .comment(request.getComment())
+                .dueDay(request.getDueDay())
+                .build());
+        chunkLines.add(line);
+        if (chunk.size() == CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(ProviderImportError.builder().line(line).message(message).build());
+        }
+    }
+
+    ProviderImportResponse finish() {
+        flush();
+        return ProviderImportResponse.builder()
+                .imported(imported)
+                .rejected(rejected)
+                .billsCreated(billsCreated)
+                .errors(errors)
+                .build();
+    }
+
+    private void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            UtilityBillingService.ImportResult result = billingService.importProviders(chunk);
+            imported += result.providersCreated();
+            billsCreated += result.billsCreated();
+        } catch (RuntimeException e) {
+            for (Long line : chunkLines) {
+                reject(line, "not imported: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    // Fields of one CSV line (RFC 4180 quoting, no line breaks inside fields)
+    static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
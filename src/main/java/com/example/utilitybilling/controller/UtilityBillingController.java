@@ -2,23 +2,50 @@ package com.example.utilitybilling.controller;
 
 import com.example.utilitybilling.dto.*;
 import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import com.example.utilitybilling.recurrence.SpendForecast;
+import com.example.utilitybilling.service.BillSummaryService;
+import com.example.utilitybilling.service.SpendForecastService;
 import com.example.utilitybilling.service.UtilityBillingService;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "http://localhost:8081")
 @RestController
@@ -27,7 +54,17 @@ import java.util.stream.Collectors;
 @Tag(name = "Utility Billing API", description = "Manage utility providers and bills")
 public class UtilityBillingController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private static final String EXPORT_HEADER = "bill_id,provider_id,provider_name,amount,status,due_date,created_at,updated_at\n";
+    private static final int EXPORT_BUFFER = 64 * 1024;
+
     private final UtilityBillingService billingService;
+    private final BillSummaryService summaryService;
+    private final SpendForecastService forecastService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
     @Operation(summary = "Fetch all currently registered providers")
     @GetMapping("/providers")
@@ -35,6 +72,18 @@ public class UtilityBillingController {
         return billingService.findAllProviders().stream().map(this::toProviderResponse).collect(Collectors.toList());
     }
 
+    @Operation(summary = "Fetch providers page by page in id order; pass nextCursor back as cursor for the next page")
+    @GetMapping("/providers/page")
+    public CursorPage<ProviderResponse> getProvidersPage(
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        UtilityBillingService.KeysetPage<UtilityProvider> page = billingService.findProvidersPage(limit, cursor);
+        return CursorPage.<ProviderResponse>builder()
+                .items(page.items().stream().map(this::toProviderResponse).collect(Collectors.toList()))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
     @Operation(summary = "Create a new provider")
     @PostMapping("/providers")
     public ResponseEntity<ProviderResponse> createProvider(@Valid @RequestBody ProviderCreateRequest request) {
@@ -48,6 +97,73 @@ public class UtilityBillingController {
         return new ResponseEntity<>(toProviderResponse(created), HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Import providers from CSV with a header row (name,frequency,dueDay[,comment]); " +
+            "invalid rows are reported and skipped")
+    @PostMapping(value = "/providers/import", consumes = "text/csv")
+    public ProviderImportResponse importProvidersFromCsv(InputStream body) throws IOException {
+        ProviderImport providerImport = new ProviderImport(billingService, validator);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return providerImport.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> headerFields = ProviderImport.csvFields(header.replace("\uFEFF", ""));
+        for (int i = 0; i < headerFields.size(); i++) {
+            columns.put(headerFields.get(i).trim(), i);
+        }
+        for (String required : List.of("name", "frequency", "dueDay")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing CSV column: " + required);
+            }
+        }
+
+        long lineNo = 1;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                List<String> fields = ProviderImport.csvFields(line);
+                String frequency = csvValue(fields, columns.get("frequency"));
+                String dueDay = csvValue(fields, columns.get("dueDay"));
+                // Missing values stay unset and are reported by the validation
+                providerImport.accept(lineNo, ProviderCreateRequest.builder()
+                        .name(csvValue(fields, columns.get("name")))
+                        .frequency(frequency == null ? null : BillingFrequency.valueOf(frequency.trim()))
+                        .dueDay(dueDay == null ? 0 : Integer.parseInt(dueDay.trim()))
+                        .comment(csvValue(fields, columns.get("comment")))
+                        .build());
+            } catch (IllegalArgumentException e) {
+                providerImport.reject(lineNo, e.getMessage());
+            }
+        }
+        return providerImport.finish();
+    }
+
+    @Operation(summary = "Import providers from an NDJSON stream of provider create requests; " +
+            "invalid rows are reported and skipped")
+    @PostMapping(value = "/providers/import", consumes = "application/x-ndjson")
+    public ProviderImportResponse importProvidersFromNdjson(InputStream body) throws IOException {
+        ProviderImport providerImport = new ProviderImport(billingService, validator);
+        ObjectReader rows = objectMapper.readerFor(ProviderCreateRequest.class);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNo = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                providerImport.accept(lineNo, rows.readValue(line));
+            } catch (JsonProcessingException e) {
+                providerImport.reject(lineNo, e.getOriginalMessage());
+            }
+        }
+        return providerImport.finish();
+    }
+
     @Operation(summary = "Update existing provider")
     @PutMapping("/providers/{providerId}")
     public ResponseEntity<ProviderResponse> updateProvider(
@@ -64,23 +180,310 @@ public class UtilityBillingController {
         return ResponseEntity.ok(toProviderResponse(updated));
     }
 
+    @Operation(summary = "Change frequency and due day of many providers at once")
+    @PutMapping("/providers/schedule")
+    public ProviderScheduleUpdateResponse updateProviderSchedules(@Valid @RequestBody ProviderScheduleUpdateRequest request) {
+        UtilityBillingService.ScheduleResyncResult result = billingService.updateProviderSchedules(
+                request.getProviderIds(), request.getFrequency(), request.getDueDay());
+        return ProviderScheduleUpdateResponse.builder()
+                .providersUpdated(result.providersUpdated())
+                .billsDeleted(result.billsDeleted())
+                .billsCreated(result.billsCreated())
+                .build();
+    }
+
     @Operation(summary = "Update existing bill (amount and status)")
     @PatchMapping("/bills/{billId}")
     public ResponseEntity<BillResponse> updateBill(
             @PathVariable UUID billId,
             @Valid @RequestBody BillUpdateRequest request) {
-        Bill updated = billingService.updateBill(billId, request.getAmount(), request.getStatus());
+        Bill updated = billingService.updateBill(billId, Money.of(request.getAmount()), request.getStatus());
         return ResponseEntity.ok(toBillResponse(updated));
     }
 
+    @Operation(summary = "Update many bills (amount and status) in one transaction, from a JSON array")
+    @PatchMapping(value = "/bills", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BillBulkUpdateResponse updateBills(@RequestBody List<BillBulkUpdateItem> items) {
+        return bulkUpdate(items);
+    }
+
+    @Operation(summary = "Update many bills (amount and status) in one transaction, from an NDJSON stream")
+    @PatchMapping(value = "/bills", consumes = "application/x-ndjson")
+    public BillBulkUpdateResponse updateBillsFromNdjson(InputStream body) throws IOException {
+        List<BillBulkUpdateItem> items = new ArrayList<>();
+        try (MappingIterator<BillBulkUpdateItem> lines = objectMapper.readerFor(BillBulkUpdateItem.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                items.add(lines.nextValue());
+            }
+        }
+        return bulkUpdate(items);
+    }
+
     @Operation(summary = "Fetch bills due in a specific year-month (yyyy-MM)")
     @GetMapping("/bills")
     public List<BillResponse> getBillsByYearMonth(@RequestParam("yearMonth") String yearMonth) {
         return billingService.findBillsByYearMonth(yearMonth).stream().map(this::toBillResponse).collect(Collectors.toList());
     }
 
+    @Operation(summary = "Fetch bills due in a specific year-month (yyyy-MM) page by page in due date order; " +
+            "pass nextCursor back as cursor for the next page")
+    @GetMapping("/bills/page")
+    public CursorPage<BillResponse> getBillsPage(
+            @RequestParam("yearMonth") String yearMonth,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        UtilityBillingService.KeysetPage<Bill> page = billingService.findBillsPage(yearMonth, limit, cursor);
+        return CursorPage.<BillResponse>builder()
+                .items(page.items().stream().map(this::toBillResponse).collect(Collectors.toList()))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
+    @Operation(summary = "Fetch the overdue bills (not paid a grace period after their due date) page by page " +
+            "in due date order; pass nextCursor back as cursor for the next page")
+    @GetMapping("/bills/overdue")
+    public CursorPage<BillResponse> getOverdueBills(
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        UtilityBillingService.KeysetPage<Bill> page = billingService.findOverdueBillsPage(limit, cursor);
+        return CursorPage.<BillResponse>builder()
+                .items(page.items().stream().map(this::toBillResponse).collect(Collectors.toList()))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
+    @Operation(summary = "Stream bills due from one year-month through another (yyyy-MM, inclusive) as NDJSON")
+    @GetMapping(value = "/bills/range", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamBillsByMonthRange(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to) {
+        YearMonth fromYM = billingService.parseYearMonth(from);
+        YearMonth toYM = billingService.parseYearMonth(to);
+        // Validate before the response is committed; errors while streaming can only cut the stream short
+        billingService.checkMonthRange(fromYM, toYM);
+
+        ObjectWriter writer = objectMapper.writerFor(BillResponse.class);
+        StreamingResponseBody body = out -> billingService.streamBillsByMonthRange(fromYM, toYM,
+                bill -> writeLine(out, writer, toBillResponse(bill)));
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @Operation(summary = "Bill counts and amount totals per due month and status (yyyy-MM, inclusive), " +
+            "over all providers or for a single one")
+    @GetMapping("/bills/summary")
+    public List<BillSummaryResponse> getBillSummary(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to,
+            @RequestParam(value = "providerId", required = false) UUID providerId) {
+        YearMonth fromYM = billingService.parseYearMonth(from);
+        YearMonth toYM = billingService.parseYearMonth(to);
+        billingService.checkMonthRange(fromYM, toYM);
+
+        if (providerId != null) {
+            return summaryService.providerTotals(providerId, fromYM, toYM).stream()
+                    .map(s -> BillSummaryResponse.builder()
+                            .yearMonth(toYearMonth(s.getPeriod()))
+                            .providerId(s.getProviderId())
+                            .status(s.getStatus())
+                            .billCount(s.getBillCount())
+                            .amountSum(s.getAmountSum())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+        return summaryService.totalsByMonthAndStatus(fromYM, toYM).stream()
+                .map(t -> BillSummaryResponse.builder()
+                        .yearMonth(toYearMonth(t.getPeriod()))
+                        .status(t.getStatus())
+                        .billCount(t.getBillCount())
+                        .amountSum(t.getAmountSum())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Operation(summary = "Projected bill counts and amounts per month and frequency (yyyy-MM, inclusive, from the " +
+            "current month on), over all providers or for a single one; amounts are the providers' default amounts " +
+            "or the average of their recently paid bills")
+    @GetMapping("/bills/forecast")
+    public List<SpendForecastResponse> getSpendForecast(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to,
+            @RequestParam(value = "estimate", defaultValue = "DEFAULT_AMOUNT") SpendForecastService.Estimate estimate,
+            @RequestParam(value = "providerId", required = false) UUID providerId) {
+        YearMonth fromYM = billingService.parseYearMonth(from);
+        YearMonth toYM = billingService.parseYearMonth(to);
+        billingService.checkMonthRange(fromYM, toYM);
+
+        SpendForecast forecast = forecastService.forecast(fromYM, toYM, estimate, providerId);
+        List<SpendForecastResponse> rows = new ArrayList<>();
+        for (int m = 0; m < forecast.months(); m++) {
+            String yearMonth = BillingRecurrence.toYearMonth(forecast.epochMonth(m)).toString();
+            for (BillingFrequency frequency : BillingFrequency.values()) {
+                long billCount = forecast.billCount(frequency, m);
+                if (billCount > 0) {
+                    rows.add(SpendForecastResponse.builder()
+                            .yearMonth(yearMonth)
+                            .providerId(providerId)
+                            .frequency(frequency)
+                            .billCount(billCount)
+                            .amountSum(Money.toBigDecimal(forecast.amountUnits(frequency, m)))
+                            .build());
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Operation(summary = "Recompute the monthly bill summary from the bills")
+    @PostMapping("/bills/summary/rebuild")
+    public ResponseEntity<Void> rebuildBillSummary() {
+        summaryService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Export the bills due from one day through another (yyyy-MM-dd, inclusive) " +
+            "with provider names as gzip-compressed CSV")
+    @GetMapping(value = "/bills/export", produces = "application/gzip")
+    public ResponseEntity<StreamingResponseBody> exportBills(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to) {
+        LocalDate fromDate = billingService.parseDate(from);
+        LocalDate toDate = billingService.parseDate(to);
+        billingService.checkDateRange(fromDate, toDate);
+
+        StreamingResponseBody body = out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, EXPORT_BUFFER);
+            Writer csv = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), EXPORT_BUFFER);
+            csv.write(EXPORT_HEADER);
+            billingService.exportBills(fromDate, toDate, (bill, providerName) -> writeCsvLine(csv, bill, providerName));
+            csv.flush();
+            gzip.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bills-" + fromDate + "-" + toDate + ".csv.gz").build().toString())
+                .body(body);
+    }
+
+    // Invalid items are reported and skipped, the valid ones go to the service as one batch
+    private BillBulkUpdateResponse bulkUpdate(List<BillBulkUpdateItem> items) {
+        BillBulkUpdateResult[] results = new BillBulkUpdateResult[items.size()];
+        List<UtilityBillingService.BillChange> changes = new ArrayList<>(items.size());
+        List<Integer> changeIndexes = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            BillBulkUpdateItem item = items.get(i);
+            Set<ConstraintViolation<BillBulkUpdateItem>> violations = item == null ? Set.of() : validator.validate(item);
+            if (item == null || !violations.isEmpty()) {
+                results[i] = BillBulkUpdateResult.builder()
+                        .index(i)
+                        .billId(item == null ? null : item.getBillId())
+                        .outcome(BillBulkUpdateResult.Outcome.INVALID)
+                        .message(item == null ? "empty item" : violations.stream()
+                                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                                .sorted()
+                                .collect(Collectors.joining(", ")))
+                        .build();
+                continue;
+            }
+            changes.add(new UtilityBillingService.BillChange(
+                    item.getBillId(), Money.of(item.getAmount()), item.getStatus()));
+            changeIndexes.add(i);
+        }
+
+        List<UtilityBillingService.BillChangeOutcome> outcomes = billingService.updateBills(changes);
+        for (int n = 0; n < outcomes.size(); n++) {
+            int i = changeIndexes.get(n);
+            results[i] = BillBulkUpdateResult.builder()
+                    .index(i)
+                    .billId(changes.get(n).billId())
+                    .outcome(switch (outcomes.get(n)) {
+                        case UPDATED -> BillBulkUpdateResult.Outcome.UPDATED;
+                        case NOT_FOUND -> BillBulkUpdateResult.Outcome.NOT_FOUND;
+                        case REJECTED -> BillBulkUpdateResult.Outcome.REJECTED;
+                    })
+                    .build();
+        }
+
+        int updated = 0;
+        int notFound = 0;
+        int invalid = 0;
+        int rejected = 0;
+        for (BillBulkUpdateResult result : results) {
+            switch (result.getOutcome()) {
+                case UPDATED -> updated++;
+                case NOT_FOUND -> notFound++;
+                case INVALID -> invalid++;
+                case REJECTED -> rejected++;
+            }
+        }
+        return BillBulkUpdateResponse.builder()
+                .updated(updated)
+                .notFound(notFound)
+                .invalid(invalid)
+                .rejected(rejected)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
     // Mapping helpers
 
+    private static void writeLine(OutputStream out, ObjectWriter writer, Object value) {
+        try {
+            out.write(writer.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // yyyymm summary period to yyyy-MM
+    private static String toYearMonth(int period) {
+        return YearMonth.of(period / 100, period % 100).toString();
+    }
+
+    private static void writeCsvLine(Writer csv, Bill bill, String providerName) {
+        try {
+            csv.write(bill.getId().toString());
+            csv.write(',');
+            csv.write(bill.getProviderId().toString());
+            csv.write(',');
+            csv.write(csvField(providerName));
+            csv.write(',');
+            csv.write(bill.getAmount() == null ? "" : bill.getAmount().toString());
+            csv.write(',');
+            csv.write(bill.getStatus().name());
+            csv.write(',');
+            csv.write(bill.getDueDate().toString());
+            csv.write(',');
+            csv.write(bill.getCreatedAt().toString());
+            csv.write(',');
+            csv.write(bill.getUpdatedAt().toString());
+            csv.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180 quoting for free-text fields
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Field of a CSV row, null when the column is absent or the row is short
+    private static String csvValue(List<String> fields, Integer column) {
+        if (column == null || column >= fields.size() || fields.get(column).isEmpty()) {
+            return null;
+        }
+        return fields.get(column);
+    }
+
     private ProviderResponse toProviderResponse(UtilityProvider p) {
         return ProviderResponse.builder()
                 .id(p.getId())
@@ -92,11 +495,19 @@ public class UtilityBillingController {
                 .build();
     }
 
-    private BillResponse toBillResponse(Bill b) {
+    // Unknown provider or bill ids
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    // package-private for the jmh benchmarks
+    BillResponse toBillResponse(Bill b) {
         return BillResponse.builder()
                 .id(b.getId())
                 .providerId(b.getProviderId())
-                .amount(b.getAmount())
+                .amount(Money.toBigDecimal(b.getAmount()))
+                .amountEntered(b.isAmountEntered())
                 .status(b.getStatus())
                 .dueDate(b.getDueDate())
                 .createdAt(b.getCreatedAt())
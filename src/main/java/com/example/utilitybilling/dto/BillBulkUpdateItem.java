@@ -0,0 +1,32 @@
+package com.example.utilitybilling.dto;
+
+import com.example.utilitybilling.model.BillStatus;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillBulkUpdateItem {
+    @NotNull
+    private UUID billId;
+
+    // Up to 14 integer digits, well inside the range Money holds
+    @DecimalMin("0.00")
+    @DecimalMax(value = "100000000000000", inclusive = false)
+    private BigDecimal amount;
+
+    @NotNull
+    private BillStatus status;
+}
@@ -0,0 +1,23 @@
+package com.example.utilitybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillBulkUpdateResponse {
+    private int updated;
+    private int notFound;
+    private int invalid;
+    // Status would have moved backwards
+    private int rejected;
+    private List<BillBulkUpdateResult> results;
+}
@@ -0,0 +1,30 @@
+package com.example.utilitybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillBulkUpdateResult {
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        INVALID,
+        REJECTED
+    }
+
+    // Position of the item in the request
+    private int index;
+    private UUID billId;
+    private Outcome outcome;
+    private String message;
+}
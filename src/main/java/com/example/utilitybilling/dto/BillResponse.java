@@ -20,6 +20,8 @@ public class BillResponse {
     private UUID id;
     private UUID providerId;
     private BigDecimal amount;
+    // false for a blank amount or a draft's generated default
+    private boolean amountEntered;
     private BillStatus status;
     private LocalDateTime dueDate;
     private LocalDateTime createdAt;
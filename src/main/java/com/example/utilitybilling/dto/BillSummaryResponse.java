@@ -0,0 +1,26 @@
+package com.example.utilitybilling.dto;
+
+import com.example.utilitybilling.model.BillStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillSummaryResponse {
+    // yyyy-MM
+    private String yearMonth;
+    // Set for per-provider summaries only
+    private UUID providerId;
+    private BillStatus status;
+    private long billCount;
+    private BigDecimal amountSum;
+}
@@ -1,5 +1,6 @@
 package com.example.utilitybilling.dto;
 
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -16,7 +17,9 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Builder
 public class BillUpdateRequest {
+    // Up to 14 integer digits, well inside the range Money holds
     @DecimalMin("0.00")
+    @DecimalMax(value = "100000000000000", inclusive = false)
     private BigDecimal amount;
 
     @NotNull
@@ -0,0 +1,29 @@
+package com.example.utilitybilling.dto;
+
+import com.example.utilitybilling.model.GenerationRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GenerationRunResponse {
+    // yyyy-MM
+    private String runMonth;
+    private GenerationRunStatus status;
+    private int partitionCount;
+    private int partitionsCompleted;
+    private int partitionsFailed;
+    private long providersScanned;
+    private long billsCreated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime updatedAt;
+}
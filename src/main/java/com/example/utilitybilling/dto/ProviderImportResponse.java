@@ -0,0 +1,22 @@
+package com.example.utilitybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderImportResponse {
+    private long imported;
+    private long rejected;
+    private long billsCreated;
+    // The first rejected rows; 'rejected' has the full count
+    private List<ProviderImportError> errors;
+}
@@ -0,0 +1,32 @@
+package com.example.utilitybilling.dto;
+
+import com.example.utilitybilling.model.BillingFrequency;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderScheduleUpdateRequest {
+    @NotEmpty
+    private List<@NotNull UUID> providerIds;
+
+    @NotNull
+    private BillingFrequency frequency;
+
+    @Min(1)
+    @Max(28)
+    private int dueDay;
+}
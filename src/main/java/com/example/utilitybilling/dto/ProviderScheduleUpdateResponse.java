@@ -0,0 +1,18 @@
+package com.example.utilitybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderScheduleUpdateResponse {
+    private int providersUpdated;
+    private int billsDeleted;
+    private int billsCreated;
+}
@@ -0,0 +1,26 @@
+package com.example.utilitybilling.dto;
+
+import com.example.utilitybilling.model.BillingFrequency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendForecastResponse {
+    // yyyy-MM
+    private String yearMonth;
+    // Set for single-provider forecasts only
+    private UUID providerId;
+    private BillingFrequency frequency;
+    private long billCount;
+    private BigDecimal amountSum;
+}
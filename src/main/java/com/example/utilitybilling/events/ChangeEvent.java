@@ -0,0 +1,18 @@
+package com.example.utilitybilling.events;
+
+import com.example.utilitybilling.model.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A change as sinks and subscribers see it; id is the outbox id, increasing in insert order (a transaction
+// may still commit after one that took a higher id)
+public record ChangeEvent(long id, OutboxEventType type, UUID aggregateId, UUID providerId, BillStatus status,
+                          BigDecimal amount, LocalDateTime dueDate, LocalDateTime occurredAt) {
+
+    public static ChangeEvent of(OutboxEvent event) {
+        return new ChangeEvent(event.getId(), event.getEventType(), event.getAggregateId(), event.getProviderId(),
+                event.getBillStatus(), event.getAmount(), event.getDueDate(), event.getOccurredAt());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.utilitybilling.events;
+
+import java.util.List;
+
+// Destination of the events published by OutboxRelay; every EventSink bean receives every batch, on the
+// instance holding the relay lease and outside any transaction. Batches arrive in id order. Throwing leaves
+// the batch unpublished and the relay offers it again, to every sink, so delivery is at least once and
+// consumers deduplicate by event id.
+public interface EventSink {
+
+    void publish(List<ChangeEvent> events);
+}
@@ -0,0 +1,43 @@
+package com.example.utilitybilling.events;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Stub of an external sink (billing.events.sink=file): appends every batch as NDJSON lines to
+// billing.events.file, so integrations can be tried out and tested without a broker
+@Component
+@ConditionalOnProperty(prefix = "billing.events", name = "sink", havingValue = "file")
+public class FileEventSink implements EventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileEventSink(BillingProperties properties, ObjectMapper objectMapper) {
+        this.file = Path.of(properties.getEvents().getFile());
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<ChangeEvent> events) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (ChangeEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append events to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.utilitybilling.events;
+
+import com.example.utilitybilling.config.BillingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// In-process sink (billing.events.sink=local) for consumers in the same JVM and for tests.
+// Bounded: when nobody drains it, the oldest events are dropped rather than holding up the relay.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "billing.events", name = "sink", havingValue = "local")
+public class LocalQueueEventSink implements EventSink {
+
+    private final BlockingQueue<ChangeEvent> queue;
+
+    public LocalQueueEventSink(BillingProperties properties) {
+        this.queue = new LinkedBlockingQueue<>(properties.getEvents().getLocalQueueCapacity());
+    }
+
+    @Override
+    public void publish(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            while (!queue.offer(event)) {
+                ChangeEvent dropped = queue.poll();
+                if (dropped != null) {
+                    log.warn("Local event queue full, dropped event {}", dropped.id());
+                }
+            }
+        }
+    }
+
+    // Next event, waiting up to the timeout; null when none arrived
+    public ChangeEvent poll(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public int drainTo(List<ChangeEvent> target) {
+        return queue.drainTo(target);
+    }
+}
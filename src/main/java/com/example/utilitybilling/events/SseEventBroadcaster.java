@@ -0,0 +1,246 @@
+package com.example.utilitybilling.events;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.OutboxEvent;
+import com.example.utilitybilling.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pushes the change events to the server-sent event subscribers of this instance. Every instance follows the
+// outbox table itself, past the last id it delivered, so a subscriber sees the changes made through any
+// instance, whichever one holds the relay lease. Outbox ids are taken at insert but become visible at commit:
+// a missing id is waited for up to billing.events.settle-delay, then taken as rolled back and skipped.
+// The poll only queues events per subscriber; a sender thread per busy subscriber writes them out, so a slow
+// client holds up neither the poll nor the other subscribers.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SseEventBroadcaster {
+
+    // Cursor not read from the table yet
+    private static final long NOT_STARTED = -1;
+
+    private final OutboxEventRepository outboxRepository;
+    private final BillingProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean pollScheduled = new AtomicBoolean();
+    private final ExecutorService senders = Executors.newCachedThreadPool(new CustomizableThreadFactory("sse-send-"));
+
+    // Last outbox id queued to the subscribers; moved before the delivery, so a concurrent subscribe replays
+    // through it
+    private volatile long cursor = NOT_STARTED;
+
+    // Since when the poll waits for the id after the cursor (System.nanoTime); guarded by this
+    private boolean waiting;
+    private long waitingSince;
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeEvent> pending;
+
+        // Set while a sender works through the queue; one at a time keeps the events in order
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        // Last event id queued to it; guarded by the broadcaster
+        private long lastQueued;
+
+        // Fell behind the queue capacity: completed once the queue is sent
+        private volatile boolean overflowed;
+
+        // Gone (completed, timed out or failed): nothing more is queued or sent
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    // Subscribe, replaying the events after lastEventId when given (the Last-Event-ID of a reconnect)
+    public SseEmitter subscribe(Long lastEventId) {
+        int capacity = properties.getEvents().getSubscriberQueueCapacity();
+        SseEmitter emitter = new SseEmitter(properties.getEvents().getSubscriptionTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, capacity);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> close(subscriber));
+        start();
+        synchronized (this) {
+            // Queued before any poll can queue past the cursor: the replay covers what lies up to it
+            long through = cursor;
+            subscriber.lastQueued = through;
+            if (lastEventId != null && lastEventId < through) {
+                List<ChangeEvent> missed = outboxRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                        lastEventId, through, Limit.of(capacity)).stream().map(ChangeEvent::of).toList();
+                subscriber.lastQueued = lastEventId;
+                enqueue(subscriber, missed);
+                if (missed.size() == capacity && subscriber.lastQueued < through) {
+                    // The rest is replayed on the next reconnect
+                    subscriber.overflowed = true;
+                    sendSoon(subscriber);
+                    return emitter;
+                }
+                subscriber.lastQueued = through;
+            } else if (lastEventId != null) {
+                // Seen further than this instance got so far
+                subscriber.lastQueued = lastEventId;
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    // Queue the committed events after the cursor to every subscriber, in id order; returns the number of events
+    public synchronized int poll() {
+        start();
+        int batchSize = properties.getEvents().getBatchSize();
+        long settleNanos = properties.getEvents().getSettleDelay().toNanos();
+        int delivered = 0;
+        List<OutboxEvent> rows;
+        List<ChangeEvent> ready;
+        do {
+            rows = outboxRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(batchSize));
+            ready = new ArrayList<>(rows.size());
+            long next = cursor;
+            for (OutboxEvent row : rows) {
+                if (row.getId() != next + 1) {
+                    long now = System.nanoTime();
+                    if (!waiting) {
+                        waiting = true;
+                        waitingSince = now;
+                    }
+                    if (now - waitingSince < settleNanos) {
+                        break;
+                    }
+                }
+                waiting = false;
+                ready.add(ChangeEvent.of(row));
+                next = row.getId();
+            }
+            if (ready.isEmpty()) {
+                break;
+            }
+            cursor = next;
+            for (Subscriber subscriber : subscribers) {
+                enqueue(subscriber, ready);
+            }
+            delivered += ready.size();
+        } while (rows.size() == batchSize && ready.size() == rows.size());
+        return delivered;
+    }
+
+    // Poll on the scheduler pool as soon as possible, after a commit of this instance wrote events
+    public void pollSoon() {
+        if (!pollScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        taskScheduler.schedule(() -> {
+            pollScheduled.set(false);
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("Reading outbox events for the subscribers failed, retrying with the next poll", e);
+            }
+        }, Instant.now());
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    // Subscribers only see the events committed after the first poll or subscription of this instance
+    private synchronized void start() {
+        if (cursor == NOT_STARTED) {
+            cursor = outboxRepository.maxId();
+        }
+    }
+
+    // Queues the events the subscriber has not been given yet and wakes its sender. A full queue stops the
+    // subscriber: it is completed once the queued events are out. Called under the broadcaster's lock.
+    private void enqueue(Subscriber subscriber, List<ChangeEvent> events) {
+        if (subscriber.overflowed || subscriber.closed) {
+            return;
+        }
+        for (ChangeEvent event : events) {
+            if (event.id() <= subscriber.lastQueued) {
+                continue;
+            }
+            if (!subscriber.pending.offer(event)) {
+                log.debug("Event subscriber fell {} events behind, closing it", subscriber.pending.size());
+                subscriber.overflowed = true;
+                subscribers.remove(subscriber);
+                break;
+            }
+            subscriber.lastQueued = event.id();
+        }
+        sendSoon(subscriber);
+    }
+
+    private void sendSoon(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> send(subscriber));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    // Writes out the subscriber's queue; runs on one sender at a time per subscriber. A subscriber that cannot
+    // be written to is dropped.
+    private void send(Subscriber subscriber) {
+        do {
+            ChangeEvent event;
+            while (!subscriber.closed && (event = subscriber.pending.poll()) != null) {
+                try {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name(event.type().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Dropping event subscriber", e);
+                    close(subscriber);
+                    return;
+                }
+            }
+            if (subscriber.closed) {
+                return;
+            }
+            if (subscriber.overflowed && subscriber.pending.isEmpty()) {
+                close(subscriber);
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.sending.set(false);
+            // Events or an overflow that arrived after the queue ran empty, unless a new sender took them
+        } while ((!subscriber.pending.isEmpty() || subscriber.overflowed)
+                && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+        subscriber.pending.clear();
+    }
+}
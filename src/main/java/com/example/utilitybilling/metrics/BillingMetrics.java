@@ -0,0 +1,83 @@
+package com.example.utilitybilling.metrics;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Programmatic meters of the billing hot paths; whole service operations and scheduler runs are timed
+// with @Timed. Timers publish percentile histograms so latency can be alerted on from the Prometheus scrape,
+// counters track what the write paths did to the bill table.
+@Component
+public class BillingMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter billsGenerated;
+    private final Counter billsSkipped;
+    private final Counter billsDeleted;
+    private final Counter billsArchived;
+    private final Counter billsOverdue;
+
+    public BillingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.billsGenerated = Counter.builder("billing.bills.generated")
+                .description("Bills inserted by generation")
+                .register(registry);
+        this.billsSkipped = Counter.builder("billing.bills.skipped")
+                .description("Due bills not generated because the provider was already billed that month")
+                .register(registry);
+        this.billsDeleted = Counter.builder("billing.bills.deleted")
+                .description("Unsettled bills deleted by schedule changes")
+                .register(registry);
+        this.billsArchived = Counter.builder("billing.bills.archived")
+                .description("PAYED bills moved into archive segments")
+                .register(registry);
+        this.billsOverdue = Counter.builder("billing.bills.overdue")
+                .description("Unpaid bills found past their due date by the overdue scanner")
+                .register(registry);
+    }
+
+    // Bill lookup of one month; branch is "past" (persisted bills) or "future" (projected drafts)
+    public <T> T timeBillQuery(String branch, Supplier<T> query) {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return query.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("billing.bills.query")
+                    .description("Bills of a month, by persisted or projected branch")
+                    .tag("branch", branch)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    public void billsGenerated(int count) {
+        billsGenerated.increment(count);
+    }
+
+    public void billsSkipped(int count) {
+        billsSkipped.increment(count);
+    }
+
+    public void billsDeleted(int count) {
+        billsDeleted.increment(count);
+    }
+
+    public void billsArchived(int count) {
+        billsArchived.increment(count);
+    }
+
+    public void billsOverdue(int count) {
+        billsOverdue.increment(count);
+    }
+
+    // A write that lost an optimistic race and is retried (or given up on)
+    public void writeRetried(String operation) {
+        registry.counter("billing.writes.retried", "operation", operation).increment();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.utilitybilling.metrics;
+
+// Counts the SQL statements prepared on the current thread while a count is open. Fed by
+// StatementCountingDataSource, so Hibernate's statements and the JdbcTemplate ones (summary and generation
+// MERGE batches, outbox inserts, archive statements) are counted alike; a JDBC batch counts once.
+public final class JdbcStatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private JdbcStatementCounter() {
+    }
+
+    // Start counting on this thread
+    public static void open() {
+        COUNT.set(new int[1]);
+    }
+
+    // Stop counting on this thread and return the statements seen since open()
+    public static int close() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    static void increment() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
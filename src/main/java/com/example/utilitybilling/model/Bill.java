@@ -5,14 +5,15 @@ import jakarta.validation.constraints.*;
 
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+// One bill per provider and due month: unique index uq_bill_provider_period on (provider_id, billing_period),
+// where billing_period is a generated yyyymm column maintained by the database and not mapped here
 @Table(name = "bill",
-        indexes = {@Index(name = "idx_bill_due_date", columnList = "dueDate"),
-                @Index(name = "idx_bill_provider_id", columnList = "provider_id")})
+        indexes = {@Index(name = "idx_bill_due_date_id", columnList = "due_date, id"),
+                @Index(name = "idx_bill_provider_due_date", columnList = "provider_id, due_date")})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,8 +29,13 @@ public class Bill {
     @Column(name = "provider_id", nullable = false)
     private UUID providerId;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(precision = 19, scale = 4)
-    private BigDecimal amount;
+    private Money amount;
+
+    // Whether a user entered the amount; a draft's generated default amount is not entered
+    @Column(name = "amount_entered", nullable = false)
+    private boolean amountEntered;
 
     @NotNull
     @Enumerated(EnumType.STRING)
@@ -47,4 +53,9 @@ public class Bill {
     @NotNull
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
+
+    // Optimistic lock; null until persisted, so a new bill is inserted without a lookup
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.utilitybilling.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Ledger entry of the bill generation of one month; the totals cover all nodes and all attempts
+@Entity
+@Table(name = "bill_generation_run")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillGenerationRun {
+
+    @Id
+    @Column(name = "run_month", length = 7, nullable = false)
+    private String runMonth;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private GenerationRunStatus status;
+
+    @Column(name = "partition_count", nullable = false)
+    private int partitionCount;
+
+    @Column(name = "partitions_completed", nullable = false)
+    private int partitionsCompleted;
+
+    @Column(name = "partitions_failed", nullable = false)
+    private int partitionsFailed;
+
+    @Column(name = "providers_scanned", nullable = false)
+    private long providersScanned;
+
+    @Column(name = "bills_created", nullable = false)
+    private long billsCreated;
+
+    @NotNull
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
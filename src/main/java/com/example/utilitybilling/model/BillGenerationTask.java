@@ -0,0 +1,62 @@
+package com.example.utilitybilling.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Queued bill generation for one provider and month; deleted once processed, FAILED after the last attempt
+@Entity
+@Table(name = "bill_generation_task")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillGenerationTask {
+
+    @Id
+    @Column(nullable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "provider_id", nullable = false)
+    private UUID providerId;
+
+    @NotNull
+    @Column(name = "run_month", length = 7, nullable = false)
+    private String runMonth;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private BillGenerationTaskStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Not picked up before this time (retry backoff)
+    @NotNull
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    // Set by the poll that claimed the task
+    @Column(name = "claim_token")
+    private UUID claimToken;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,7 @@
+package com.example.utilitybilling.model;
+
+public enum BillGenerationTaskStatus {
+    PENDING,
+    RUNNING,
+    FAILED
+}
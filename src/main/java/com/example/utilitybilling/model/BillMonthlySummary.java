@@ -0,0 +1,54 @@
+package com.example.utilitybilling.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Pre-aggregated bills per due month, provider and status; written by BillSummaryService only
+@Entity
+@Table(name = "bill_monthly_summary")
+@IdClass(BillMonthlySummary.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillMonthlySummary {
+
+    // Due month as yyyymm
+    @Id
+    @Column(nullable = false)
+    private int period;
+
+    @Id
+    @Column(name = "provider_id", nullable = false)
+    private UUID providerId;
+
+    @Id
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private BillStatus status;
+
+    @Column(name = "bill_count", nullable = false)
+    private long billCount;
+
+    @NotNull
+    @Column(name = "amount_sum", precision = 19, scale = 4, nullable = false)
+    private BigDecimal amountSum;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private int period;
+        private UUID providerId;
+        private BillStatus status;
+    }
+}
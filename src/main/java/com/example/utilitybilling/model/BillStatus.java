@@ -1,8 +1,20 @@
 package com.example.utilitybilling.model;
 
 public enum BillStatus {
-    NOT_ARRIVED,
-    ARRIVED,
-    PAYED,
-    DRAFT
+    NOT_ARRIVED(1),
+    ARRIVED(2),
+    PAYED(3),
+    DRAFT(0);
+
+    // Position in the lifecycle DRAFT -> NOT_ARRIVED -> ARRIVED -> PAYED (stored by name, so the order above stays)
+    private final int stage;
+
+    BillStatus(int stage) {
+        this.stage = stage;
+    }
+
+    // Statuses only move forward; keeping the status (an amount change) is allowed
+    public boolean canMoveTo(BillStatus next) {
+        return next.stage >= stage;
+    }
 }
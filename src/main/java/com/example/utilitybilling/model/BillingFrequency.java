@@ -1,7 +1,19 @@
 package com.example.utilitybilling.model;
 
 public enum BillingFrequency {
-    MONTHLY,
-    BI_MONTHLY,
-    YEARLY
+    MONTHLY(1),
+    BI_MONTHLY(2),
+    QUARTERLY(3),
+    YEARLY(12);
+
+    // Months between two bills, counted from the month the provider was created
+    private final int intervalMonths;
+
+    BillingFrequency(int intervalMonths) {
+        this.intervalMonths = intervalMonths;
+    }
+
+    public int getIntervalMonths() {
+        return intervalMonths;
+    }
 }
@@ -0,0 +1,67 @@
+package com.example.utilitybilling.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row per (month, provider partition) of a bill generation run; the lease hands the partition
+// to exactly one node at a time.
+@Entity
+@Table(name = "generation_partition_lease")
+@IdClass(GenerationPartitionLease.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GenerationPartitionLease {
+
+    @Id
+    @Column(name = "run_month", length = 7, nullable = false)
+    private String runMonth;
+
+    @Id
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "partition_count", nullable = false)
+    private int partitionCount;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private PartitionLeaseStatus status;
+
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    // Checkpoint: last provider of the last committed chunk, and the work done so far
+    @Column(name = "last_provider_id")
+    private UUID lastProviderId;
+
+    @Column(name = "providers_scanned", nullable = false)
+    private long providersScanned;
+
+    @Column(name = "bills_created", nullable = false)
+    private long billsCreated;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String runMonth;
+        private int partitionNo;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.utilitybilling.model;
+
+public enum GenerationRunStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,90 @@
+package com.example.utilitybilling.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point amount: a count of 1/10000 units, the scale of the DECIMAL(19, 4) amount columns.
+// Conversions from BigDecimal round half-up to 4 decimals, as the columns do on insert; arithmetic is exact
+// and fails on overflow instead of wrapping. Aggregation and projection paths work on the raw units
+// (long and long[]), so summing millions of amounts allocates nothing per value.
+public record Money(long units) implements Comparable<Money> {
+
+    public static final int SCALE = 4;
+    public static final long UNITS_PER_WHOLE = 10_000L;
+    public static final Money ZERO = new Money(0);
+
+    // null stays null (a blank amount)
+    public static Money of(BigDecimal amount) {
+        return amount == null ? null : new Money(toUnits(amount));
+    }
+
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    // null stays null (a blank amount)
+    public static BigDecimal toBigDecimal(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    // Units of the amount, 0 for a blank one
+    public static long unitsOrZero(Money money) {
+        return money == null ? 0 : money.units;
+    }
+
+    public static long sum(long[] units, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total = Math.addExact(total, units[i]);
+        }
+        return total;
+    }
+
+    // units / divisor, rounded half-up (away from zero), like BigDecimal.divide(divisor, SCALE, HALF_UP)
+    public static long divide(long units, long divisor) {
+        long quotient = units / divisor;
+        long remainder = Math.abs(units % divisor);
+        // remainder * 2 >= |divisor| without overflowing; unsigned, as |Long.MIN_VALUE| only fits that way
+        if (Long.compareUnsigned(remainder, Math.abs(divisor) - remainder) >= 0) {
+            quotient += (units < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(units, other.units));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(units, other.units));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(units);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(units, other.units);
+    }
+
+    // Plain decimal with 4 places, as BigDecimal.toPlainString() prints the column values; no BigDecimal involved
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(24);
+        long whole = units / UNITS_PER_WHOLE;
+        long fraction = Math.abs(units % UNITS_PER_WHOLE);
+        if (units < 0 && whole == 0) {
+            text.append('-');
+        }
+        text.append(whole).append('.');
+        for (long digit = UNITS_PER_WHOLE / 10; digit > 1 && fraction < digit; digit /= 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+}
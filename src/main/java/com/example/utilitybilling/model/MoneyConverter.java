@@ -0,0 +1,22 @@
+package com.example.utilitybilling.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Maps Money onto the existing DECIMAL(19, 4) columns; both directions are exact at that scale. The columns
+// could hold more than Money does; V14 checks them to the Money range and the request DTOs stay below it.
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return Money.toBigDecimal(money);
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return Money.of(amount);
+    }
+}
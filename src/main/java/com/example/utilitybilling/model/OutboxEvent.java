@@ -0,0 +1,56 @@
+package com.example.utilitybilling.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One change of a bill or provider, written by OutboxWriter in the transaction of the change.
+// Bill events carry the bill's state after the change; provider events only identify the provider.
+@Entity
+@Table(name = "outbox_event")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 30, nullable = false)
+    private OutboxEventType eventType;
+
+    // Bill id of bill events, provider id of provider events
+    @NotNull
+    @Column(name = "aggregate_id", nullable = false)
+    private UUID aggregateId;
+
+    @Column(name = "provider_id")
+    private UUID providerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bill_status", length = 20)
+    private BillStatus billStatus;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+
+    @NotNull
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Set by the relay once every sink took the event
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+}
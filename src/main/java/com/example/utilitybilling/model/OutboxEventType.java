@@ -0,0 +1,12 @@
+package com.example.utilitybilling.model;
+
+public enum OutboxEventType {
+    BILL_CREATED,
+    BILL_UPDATED,
+    // a bill left the live table: regenerated after a schedule change, or moved to the archive (BillArchive)
+    BILL_DELETED,
+    // reminder: an unpaid bill is past its due date (OverdueBillScanner)
+    BILL_OVERDUE,
+    PROVIDER_CREATED,
+    PROVIDER_UPDATED
+}
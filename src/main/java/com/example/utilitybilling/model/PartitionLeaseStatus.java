@@ -0,0 +1,8 @@
+package com.example.utilitybilling.model;
+
+public enum PartitionLeaseStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -1,15 +1,19 @@
 package com.example.utilitybilling.model;
 
+import com.example.utilitybilling.config.CacheRegions;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "utility_provider")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PROVIDER)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -38,10 +42,16 @@ public class UtilityProvider {
     @Column(name = "due_day", nullable = false)
     private int dueDay;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(precision = 19, scale = 4)
-    private BigDecimal defaultAmount;
+    private Money defaultAmount;
 
     @NotNull
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    // Optimistic lock; null until persisted, so a new provider is inserted without a lookup
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,50 @@
+package com.example.utilitybilling.recurrence;
+
+import com.example.utilitybilling.model.UtilityProvider;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+// Billing schedules in epoch months (year * 12 + month - 1). Every frequency is an interval in months counted
+// from the creation month, so a provider bills in month m iff m >= start and (m - start) is a multiple of
+// the interval. Nothing here allocates.
+public final class BillingRecurrence {
+
+    private BillingRecurrence() {
+    }
+
+    public static int epochMonth(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    public static int epochMonth(YearMonth yearMonth) {
+        return epochMonth(yearMonth.getYear(), yearMonth.getMonthValue());
+    }
+
+    public static int epochMonth(LocalDateTime dateTime) {
+        return epochMonth(dateTime.getYear(), dateTime.getMonthValue());
+    }
+
+    public static YearMonth toYearMonth(int epochMonth) {
+        return YearMonth.of(Math.floorDiv(epochMonth, 12), Math.floorMod(epochMonth, 12) + 1);
+    }
+
+    public static boolean isDue(int startMonth, int intervalMonths, int epochMonth) {
+        int elapsed = epochMonth - startMonth;
+        return elapsed >= 0 && elapsed % intervalMonths == 0;
+    }
+
+    // Decide if a bill should be generated for a provider in target month
+    public static boolean isDue(UtilityProvider provider, YearMonth month) {
+        return isDue(epochMonth(provider.getCreatedAt()), provider.getFrequency().getIntervalMonths(), epochMonth(month));
+    }
+
+    // First due month at or after the given month
+    public static int firstDueAtOrAfter(int startMonth, int intervalMonths, int epochMonth) {
+        if (epochMonth <= startMonth) {
+            return startMonth;
+        }
+        int remainder = (epochMonth - startMonth) % intervalMonths;
+        return remainder == 0 ? epochMonth : epochMonth + intervalMonths - remainder;
+    }
+}
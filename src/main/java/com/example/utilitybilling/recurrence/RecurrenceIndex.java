@@ -0,0 +1,191 @@
+package com.example.utilitybilling.recurrence;
+
+import com.example.utilitybilling.model.Money;
+import com.example.utilitybilling.model.UtilityProvider;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Precomputed billing schedules of a set of providers, held in primitive arrays.
+// Providers are bucketed by (interval, start month mod interval) and sorted by start month inside a bucket,
+// so the providers billing in a month are, per interval, a prefix of a single bucket: the lookup costs
+// one binary search per distinct interval plus the size of the answer, and allocates nothing.
+// Intervals are plain month counts, so QUARTERLY or any custom N-month schedule needs no special casing.
+// Providers are addressed by their position in the input, so sorting an answer restores the input order.
+public final class RecurrenceIndex {
+
+    private final UUID[] providerIds;
+    private final int[] dueDays;
+    private final int[] startMonths;
+    private final int[] intervalMonths;
+    private final Money[] defaultAmounts;
+
+    // Distinct intervals, and where the buckets of each interval begin in bucketStart
+    private final int[] intervals;
+    private final int[] intervalBucketBase;
+    // Bucket b spans order[bucketStart[b]] .. order[bucketStart[b + 1] - 1]
+    private final int[] bucketStart;
+    private final int[] order;
+    private final int[] orderedStartMonths;
+
+    private RecurrenceIndex(UUID[] providerIds, int[] dueDays, int[] startMonths, int[] intervalMonths,
+                            Money[] defaultAmounts) {
+        this.providerIds = providerIds;
+        this.dueDays = dueDays;
+        this.startMonths = startMonths;
+        this.intervalMonths = intervalMonths;
+        this.defaultAmounts = defaultAmounts;
+        int size = providerIds.length;
+
+        this.intervals = Arrays.stream(intervalMonths).distinct().sorted().toArray();
+        this.intervalBucketBase = new int[intervals.length];
+        int buckets = 0;
+        for (int i = 0; i < intervals.length; i++) {
+            intervalBucketBase[i] = buckets;
+            buckets += intervals[i];
+        }
+
+        int[] bucketOf = new int[size];
+        this.bucketStart = new int[buckets + 1];
+        for (int p = 0; p < size; p++) {
+            int i = Arrays.binarySearch(intervals, intervalMonths[p]);
+            bucketOf[p] = intervalBucketBase[i] + Math.floorMod(startMonths[p], intervals[i]);
+            bucketStart[bucketOf[p] + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+
+        this.order = IntStream.range(0, size).boxed()
+                .sorted(Comparator.<Integer>comparingInt(p -> bucketOf[p]).thenComparingInt(p -> startMonths[p]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.orderedStartMonths = new int[size];
+        for (int n = 0; n < size; n++) {
+            orderedStartMonths[n] = startMonths[order[n]];
+        }
+    }
+
+    public static RecurrenceIndex of(List<UtilityProvider> providers) {
+        Builder builder = new Builder(providers.size());
+        providers.forEach(builder::add);
+        return builder.build();
+    }
+
+    // Collects providers one at a time, e.g. from a cursor, so the entities need not be held meanwhile
+    public static final class Builder {
+        private int size;
+        private UUID[] ids;
+        private int[] dueDays;
+        private int[] starts;
+        private int[] intervals;
+        private Money[] amounts;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new UUID[capacity];
+            dueDays = new int[capacity];
+            starts = new int[capacity];
+            intervals = new int[capacity];
+            amounts = new Money[capacity];
+        }
+
+        public Builder add(UtilityProvider provider) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                dueDays = Arrays.copyOf(dueDays, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                intervals = Arrays.copyOf(intervals, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            ids[size] = provider.getId();
+            dueDays[size] = provider.getDueDay();
+            starts[size] = BillingRecurrence.epochMonth(provider.getCreatedAt());
+            intervals[size] = provider.getFrequency().getIntervalMonths();
+            amounts[size] = provider.getDefaultAmount();
+            size++;
+            return this;
+        }
+
+        public RecurrenceIndex build() {
+            return new RecurrenceIndex(Arrays.copyOf(ids, size), Arrays.copyOf(dueDays, size),
+                    Arrays.copyOf(starts, size), Arrays.copyOf(intervals, size), Arrays.copyOf(amounts, size));
+        }
+    }
+
+    public int size() {
+        return providerIds.length;
+    }
+
+    // Position of a provider as given to of(...)
+    public UUID providerId(int index) {
+        return providerIds[index];
+    }
+
+    public int dueDay(int index) {
+        return dueDays[index];
+    }
+
+    public int startMonth(int index) {
+        return startMonths[index];
+    }
+
+    public int intervalMonths(int index) {
+        return intervalMonths[index];
+    }
+
+    // null for a provider without default amount
+    public Money defaultAmount(int index) {
+        return defaultAmounts[index];
+    }
+
+    // Writes the indexes of the providers billing in the epoch month to 'out' (at least size() long)
+    // and returns how many were written; grouped by interval, not in input order
+    public int providersDueIn(int epochMonth, int[] out) {
+        int written = 0;
+        for (int i = 0; i < intervals.length; i++) {
+            int bucket = intervalBucketBase[i] + Math.floorMod(epochMonth, intervals[i]);
+            int from = bucketStart[bucket];
+            int to = upperBound(from, bucketStart[bucket + 1], epochMonth);
+            System.arraycopy(order, from, out, written, to - from);
+            written += to - from;
+        }
+        return written;
+    }
+
+    // Number of providers billing in the epoch month
+    public int countDueIn(int epochMonth) {
+        int count = 0;
+        for (int i = 0; i < intervals.length; i++) {
+            int bucket = intervalBucketBase[i] + Math.floorMod(epochMonth, intervals[i]);
+            int from = bucketStart[bucket];
+            count += upperBound(from, bucketStart[bucket + 1], epochMonth) - from;
+        }
+        return count;
+    }
+
+    // Writes the next out.length due months (epoch months) of the provider, starting at fromEpochMonth
+    public void nextDueMonths(int index, int fromEpochMonth, int[] out) {
+        int interval = intervalMonths[index];
+        int month = BillingRecurrence.firstDueAtOrAfter(startMonths[index], interval, fromEpochMonth);
+        for (int n = 0; n < out.length; n++, month += interval) {
+            out[n] = month;
+        }
+    }
+
+    // First position in [from, to) whose start month is after the epoch month
+    private int upperBound(int from, int to, int epochMonth) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (orderedStartMonths[mid] <= epochMonth) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.utilitybilling.recurrence;
+
+import com.example.utilitybilling.model.BillingFrequency;
+
+// Projected bill counts and amounts per month and frequency over a horizon of epoch months, accumulated
+// provider by provider without enumerating bills. A provider only marks its first due month within the horizon;
+// finish() carries every mark forward with the stride of its frequency (a prefix sum over month - interval),
+// so a forecast costs one add per provider plus months * frequencies, however long the horizon.
+public final class SpendForecast {
+
+    private static final BillingFrequency[] FREQUENCIES = BillingFrequency.values();
+
+    private final int firstMonth;
+    private final int months;
+    // [frequency ordinal][month index]; first due marks until finish(), per-month totals after
+    private final long[][] counts;
+    // Money units
+    private final long[][] amounts;
+    private boolean finished;
+
+    public SpendForecast(int firstEpochMonth, int months) {
+        if (months < 1) {
+            throw new IllegalArgumentException("A forecast covers at least one month");
+        }
+        this.firstMonth = firstEpochMonth;
+        this.months = months;
+        this.counts = new long[FREQUENCIES.length][months];
+        this.amounts = new long[FREQUENCIES.length][months];
+    }
+
+    // Adds a provider billing amountUnits (Money units) every interval from its start month;
+    // returns how many of its bills fall into the horizon
+    public int add(BillingFrequency frequency, int startMonth, long amountUnits) {
+        if (finished) {
+            throw new IllegalStateException("Forecast already finished");
+        }
+        int interval = frequency.getIntervalMonths();
+        int first = BillingRecurrence.firstDueAtOrAfter(startMonth, interval, firstMonth) - firstMonth;
+        if (first >= months) {
+            return 0;
+        }
+        int f = frequency.ordinal();
+        counts[f][first]++;
+        amounts[f][first] = Math.addExact(amounts[f][first], amountUnits);
+        return (months - 1 - first) / interval + 1;
+    }
+
+    // Turns the first due marks into per-month totals; no provider can be added afterwards
+    public SpendForecast finish() {
+        if (finished) {
+            return this;
+        }
+        for (BillingFrequency frequency : FREQUENCIES) {
+            int interval = frequency.getIntervalMonths();
+            long[] count = counts[frequency.ordinal()];
+            long[] amount = amounts[frequency.ordinal()];
+            for (int m = interval; m < months; m++) {
+                count[m] += count[m - interval];
+                amount[m] = Math.addExact(amount[m], amount[m - interval]);
+            }
+        }
+        finished = true;
+        return this;
+    }
+
+    public int months() {
+        return months;
+    }
+
+    // Epoch month of a month index
+    public int epochMonth(int monthIndex) {
+        return firstMonth + monthIndex;
+    }
+
+    public long billCount(BillingFrequency frequency, int monthIndex) {
+        checkFinished();
+        return counts[frequency.ordinal()][monthIndex];
+    }
+
+    public long amountUnits(BillingFrequency frequency, int monthIndex) {
+        checkFinished();
+        return amounts[frequency.ordinal()][monthIndex];
+    }
+
+    private void checkFinished() {
+        if (!finished) {
+            throw new IllegalStateException("Forecast not finished");
+        }
+    }
+}
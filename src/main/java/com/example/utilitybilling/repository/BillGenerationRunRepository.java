@@ -0,0 +1,16 @@
+package com.example.utilitybilling.repository;
+
+import com.example.utilitybilling.model.BillGenerationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BillGenerationRunRepository extends JpaRepository<BillGenerationRun, String> {
+
+    List<BillGenerationRun> findTop24ByOrderByRunMonthDesc();
+
+    Optional<BillGenerationRun> findFirstByOrderByRunMonthAsc();
+}
@@ -0,0 +1,51 @@
+package com.example.utilitybilling.repository;
+
+import com.example.utilitybilling.model.BillGenerationTask;
+import com.example.utilitybilling.model.BillGenerationTaskStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BillGenerationTaskRepository extends JpaRepository<BillGenerationTask, UUID> {
+
+    // Candidates of a poll: pending tasks that are due, and running ones whose worker died (lease expired)
+    @Query("select t.id from BillGenerationTask t " +
+            "where (t.status = :pending and t.availableAt <= :now) or (t.status = :running and t.leaseUntil < :now) " +
+            "order by t.availableAt")
+    List<UUID> findClaimableIds(@Param("now") LocalDateTime now,
+                                @Param("pending") BillGenerationTaskStatus pending,
+                                @Param("running") BillGenerationTaskStatus running,
+                                Limit limit);
+
+    // Take the candidates still claimable under the poll's token; concurrent pollers each get a disjoint subset
+    @Transactional
+    @Modifying
+    @Query("update BillGenerationTask t set t.status = :running, t.claimToken = :token, " +
+            "t.leaseUntil = :leaseUntil, t.updatedAt = :now " +
+            "where t.id in :ids " +
+            "and ((t.status = :pending and t.availableAt <= :now) or (t.status = :running and t.leaseUntil < :now))")
+    int claim(@Param("ids") Collection<UUID> ids,
+              @Param("token") UUID token,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("now") LocalDateTime now,
+              @Param("pending") BillGenerationTaskStatus pending,
+              @Param("running") BillGenerationTaskStatus running);
+
+    List<BillGenerationTask> findByClaimToken(UUID claimToken);
+
+    @Modifying
+    @Query("delete from BillGenerationTask t where t.claimToken = :token")
+    int deleteByClaimToken(@Param("token") UUID claimToken);
+
+    long countByStatus(BillGenerationTaskStatus status);
+}
@@ -0,0 +1,31 @@
+package com.example.utilitybilling.repository;
+
+import com.example.utilitybilling.model.BillMonthlySummary;
+import com.example.utilitybilling.model.BillStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BillMonthlySummaryRepository extends JpaRepository<BillMonthlySummary, BillMonthlySummary.Key> {
+
+    interface PeriodStatusTotal {
+        int getPeriod();
+        BillStatus getStatus();
+        long getBillCount();
+        BigDecimal getAmountSum();
+    }
+
+    @Query("select s.period as period, s.status as status, sum(s.billCount) as billCount, sum(s.amountSum) as amountSum " +
+            "from BillMonthlySummary s where s.period between :from and :to and s.billCount > 0 " +
+            "group by s.period, s.status order by s.period, s.status")
+    List<PeriodStatusTotal> sumByPeriodAndStatus(@Param("from") int fromPeriod, @Param("to") int toPeriod);
+
+    List<BillMonthlySummary> findByProviderIdAndPeriodBetweenAndBillCountGreaterThanOrderByPeriodAscStatusAsc(
+            UUID providerId, int fromPeriod, int toPeriod, long billCount);
+}
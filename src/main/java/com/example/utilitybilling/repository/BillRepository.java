@@ -1,18 +1,90 @@
 package com.example.utilitybilling.repository;
 
+import com.example.utilitybilling.config.CacheRegions;
 import com.example.utilitybilling.model.Bill;
 import com.example.utilitybilling.model.BillStatus;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, UUID> {
+    // Month lists of current and past months are read far more often than bills change; cached in the
+    // query cache, invalidated by Hibernate writes to the bill table and by SecondLevelCacheEvictions
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.BILLS_BY_MONTH)})
     List<Bill> findByDueDateBetween(LocalDateTime start, LocalDateTime end);
-    List<Bill> findByProviderIdAndDueDateBetween(UUID providerId, LocalDateTime start, LocalDateTime end);
-    List<Bill> findByDueDateLessThanEqual(LocalDateTime dateTime);
-}
\ No newline at end of file
+
+    // Overdue listing: bills in the given (unpaid) statuses due up to a point, keyset-paged in (due date, id) order
+    // from the (status, due_date, id) index, so PAYED history is never read
+    List<Bill> findByStatusInAndDueDateLessThanEqualOrderByDueDateAscIdAsc(Collection<BillStatus> statuses,
+                                                                          LocalDateTime through, Limit limit);
+
+    @Query("select b from Bill b where b.status in :statuses and b.dueDate <= :through " +
+            "and b.dueDate >= :afterDueDate and (b.dueDate > :afterDueDate or b.id > :afterId) " +
+            "order by b.dueDate, b.id")
+    List<Bill> findPageByStatusInDueThrough(@Param("statuses") Collection<BillStatus> statuses,
+                                            @Param("through") LocalDateTime through,
+                                            @Param("afterDueDate") LocalDateTime afterDueDate,
+                                            @Param("afterId") UUID afterId,
+                                            Limit limit);
+
+    // Forward-only cursor for large ranges; callers must hold a transaction and detach what they consumed
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<Bill> streamByDueDateBetweenOrderByDueDateAscIdAsc(LocalDateTime start, LocalDateTime end);
+
+    // Keyset paging in (due date, id) order within a due date range. The redundant dueDate >= :afterDueDate bound
+    // gives the (due_date, id) index a range start, so a deep page costs the same as the first one.
+    @Query("select b from Bill b where b.dueDate between :start and :end " +
+            "and b.dueDate >= :afterDueDate and (b.dueDate > :afterDueDate or b.id > :afterId) " +
+            "order by b.dueDate, b.id")
+    List<Bill> findPageByDueDateBetween(@Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end,
+                                        @Param("afterDueDate") LocalDateTime afterDueDate,
+                                        @Param("afterId") UUID afterId,
+                                        Limit limit);
+
+    List<Bill> findByDueDateBetweenOrderByDueDateAscIdAsc(LocalDateTime start, LocalDateTime end, Limit limit);
+
+    // Set-based status change of the bills due within a range, e.g. DRAFT to NOT_ARRIVED once their month is current.
+    // Conditional on the current status and versioned, so it never overrides a concurrent update.
+    @Modifying
+    @Query("update versioned Bill b set b.status = :to, b.updatedAt = :now " +
+            "where b.status = :from and b.dueDate between :start and :end")
+    int updateStatusDueBetween(@Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end,
+                               @Param("from") BillStatus from,
+                               @Param("to") BillStatus to,
+                               @Param("now") LocalDateTime now);
+
+    // Blank the generated amounts of the bills in the given status due within a range, keeping entered ones
+    @Modifying
+    @Query("update versioned Bill b set b.amount = null, b.updatedAt = :now " +
+            "where b.status = :status and b.amountEntered = false and b.amount is not null " +
+            "and b.dueDate between :start and :end")
+    int clearGeneratedAmountsDueBetween(@Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end,
+                                        @Param("status") BillStatus status,
+                                        @Param("now") LocalDateTime now);
+
+    // Set-based resync: drop the providers' bills due from the given date on, except those in the kept statuses
+    @Modifying
+    @Query("delete from Bill b where b.providerId in :providerIds and b.dueDate >= :from and b.status not in :kept")
+    int deleteByProviderIdsDueFrom(@Param("providerIds") Collection<UUID> providerIds,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("kept") Collection<BillStatus> kept);
+}
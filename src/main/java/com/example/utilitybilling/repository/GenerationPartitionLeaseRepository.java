@@ -0,0 +1,66 @@
+package com.example.utilitybilling.repository;
+
+import com.example.utilitybilling.model.GenerationPartitionLease;
+import com.example.utilitybilling.model.PartitionLeaseStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface GenerationPartitionLeaseRepository
+        extends JpaRepository<GenerationPartitionLease, GenerationPartitionLease.Key> {
+
+    List<GenerationPartitionLease> findByRunMonthOrderByPartitionNo(String runMonth);
+
+    // Take the partition if it is not completed and nobody holds a live lease; returns 1 for the winner only
+    @Transactional
+    @Modifying
+    @Query("update GenerationPartitionLease l set l.status = :running, l.owner = :owner, " +
+            "l.leaseUntil = :leaseUntil, l.updatedAt = :now " +
+            "where l.runMonth = :runMonth and l.partitionNo = :partitionNo and l.status <> :completed " +
+            "and (l.leaseUntil is null or l.leaseUntil < :now)")
+    int claim(@Param("runMonth") String runMonth,
+              @Param("partitionNo") int partitionNo,
+              @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("now") LocalDateTime now,
+              @Param("running") PartitionLeaseStatus running,
+              @Param("completed") PartitionLeaseStatus completed);
+
+    // Extend a lease still held by the owner and move its checkpoint past a chunk, in the chunk's transaction;
+    // returns 0 when the lease was lost
+    @Transactional
+    @Modifying
+    @Query("update GenerationPartitionLease l set l.leaseUntil = :leaseUntil, l.updatedAt = :now, " +
+            "l.lastProviderId = :lastProviderId, l.providersScanned = l.providersScanned + :providersScanned, " +
+            "l.billsCreated = l.billsCreated + :billsCreated " +
+            "where l.runMonth = :runMonth and l.partitionNo = :partitionNo and l.owner = :owner " +
+            "and l.status = :running")
+    int checkpoint(@Param("runMonth") String runMonth,
+                   @Param("partitionNo") int partitionNo,
+                   @Param("owner") String owner,
+                   @Param("leaseUntil") LocalDateTime leaseUntil,
+                   @Param("now") LocalDateTime now,
+                   @Param("running") PartitionLeaseStatus running,
+                   @Param("lastProviderId") UUID lastProviderId,
+                   @Param("providersScanned") long providersScanned,
+                   @Param("billsCreated") long billsCreated);
+
+    // Record the final status and release the lease
+    @Transactional
+    @Modifying
+    @Query("update GenerationPartitionLease l set l.status = :status, l.leaseUntil = null, l.updatedAt = :now " +
+            "where l.runMonth = :runMonth and l.partitionNo = :partitionNo and l.owner = :owner")
+    int release(@Param("runMonth") String runMonth,
+                @Param("partitionNo") int partitionNo,
+                @Param("owner") String owner,
+                @Param("status") PartitionLeaseStatus status,
+                @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,37 @@
+package com.example.utilitybilling.repository;
+
+import com.example.utilitybilling.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest unpublished events; only the holder of the relay lease reads them
+    List<OutboxEvent> findByPublishedAtIsNullOrderByIdAsc(Limit limit);
+
+    // Committed events after the SSE cursor, published or not
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+    // Replay for a reconnecting subscriber, up to what the live stream already delivered
+    List<OutboxEvent> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(long afterId, long throughId, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e")
+    long maxId();
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :now where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,11 +1,60 @@
 package com.example.utilitybilling.repository;
 
+import com.example.utilitybilling.config.CacheRegions;
+import com.example.utilitybilling.model.BillingFrequency;
 import com.example.utilitybilling.model.UtilityProvider;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UtilityProviderRepository extends JpaRepository<UtilityProvider, UUID> {
-}
\ No newline at end of file
+
+    interface ProviderName {
+        UUID getId();
+        String getName();
+    }
+
+    // The provider listing; the query cache holds the ids, the entities come from the provider region
+    @Override
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.PROVIDER_LIST)})
+    List<UtilityProvider> findAll();
+
+    // Keyset paging over the primary key within an inclusive id range
+    List<UtilityProvider> findByIdBetweenOrderByIdAsc(UUID from, UUID to, Limit limit);
+
+    // Keyset paging of the listing endpoint
+    List<UtilityProvider> findAllByOrderByIdAsc(Limit limit);
+
+    List<UtilityProvider> findByIdGreaterThanOrderByIdAsc(UUID after, Limit limit);
+
+    // Forward-only cursor in due order; callers must hold a transaction and detach what they consumed
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<UtilityProvider> streamAllByOrderByDueDayAscIdAsc();
+
+    // Id and name of every provider, without loading entities
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select p.id as id, p.name as name from UtilityProvider p")
+    Stream<ProviderName> streamAllNames();
+
+    // Mass schedule change in one statement; versioned, so concurrent single updates of these providers fail
+    @Modifying
+    @Query("update versioned UtilityProvider p set p.frequency = :frequency, p.dueDay = :dueDay where p.id in :ids")
+    int updateSchedule(@Param("ids") Collection<UUID> ids,
+                       @Param("frequency") BillingFrequency frequency,
+                       @Param("dueDay") int dueDay);
+}
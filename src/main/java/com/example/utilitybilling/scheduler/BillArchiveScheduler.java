@@ -0,0 +1,28 @@
+package com.example.utilitybilling.scheduler;
+
+import com.example.utilitybilling.service.BillArchive;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+// Created at startup even with lazy initialization (prod profile): @Scheduled only registers instantiated beans.
+// Its services are looked up on the first run, so lazy initialization still keeps them out of startup.
+@Lazy(false)
+@RequiredArgsConstructor
+public class BillArchiveScheduler {
+
+    private final ObjectProvider<BillArchive> billArchive;
+
+    // Moves old PAYED bills into archive segments. Instances running it at the same time queue on the row locks
+    // of a segment, so a bill is archived once. Disabled ("-") unless billing.archive.cron is set.
+    @Scheduled(cron = "${billing.archive.cron:-}", zone = "UTC")
+    @Timed(value = "billing.scheduler.run", extraTags = {"job", "billArchive"}, histogram = true)
+    public void archiveSettledBills() {
+        billArchive.getObject().archive();
+    }
+}
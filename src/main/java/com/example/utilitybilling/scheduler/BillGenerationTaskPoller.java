@@ -0,0 +1,35 @@
+package com.example.utilitybilling.scheduler;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.service.BillGenerationQueue;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+// Created at startup even with lazy initialization (prod profile): @Scheduled only registers instantiated beans.
+// Its services are looked up on the first run, so lazy initialization still keeps them out of startup.
+@Lazy(false)
+@RequiredArgsConstructor
+public class BillGenerationTaskPoller {
+
+    private final ObjectProvider<BillGenerationQueue> generationQueue;
+    private final BillingProperties properties;
+
+    // Drain the queue batch by batch, then wait for the next poll.
+    // Every instance polls; the claim tokens keep two instances off the same task.
+    // The first poll waits one interval: nothing queued before startup is urgent
+    @Scheduled(fixedDelayString = "${billing.tasks.poll-interval:PT1S}",
+            initialDelayString = "${billing.tasks.poll-interval:PT1S}")
+    public void pollBillGenerationTasks() {
+        BillGenerationQueue queue = generationQueue.getObject();
+        int batchSize = properties.getTasks().getBatchSize();
+        int claimed;
+        do {
+            claimed = queue.processBatch();
+        } while (claimed == batchSize);
+    }
+}
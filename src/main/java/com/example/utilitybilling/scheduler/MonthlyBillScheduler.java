@@ -1,22 +1,86 @@
 package com.example.utilitybilling.scheduler;
 
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.service.DraftBillHorizon;
+import com.example.utilitybilling.service.PartitionedBillGeneration;
 import com.example.utilitybilling.service.UtilityBillingService;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@Slf4j
 @Component
+// Created at startup even with lazy initialization (prod profile): @Scheduled only registers instantiated beans.
+// Its services are looked up on the first run, so lazy initialization still keeps them out of startup.
+@Lazy(false)
 @RequiredArgsConstructor
 public class MonthlyBillScheduler {
 
-    private final UtilityBillingService billingService;
+    private final ObjectProvider<UtilityBillingService> billingService;
+    private final ObjectProvider<PartitionedBillGeneration> partitionedGeneration;
+    private final ObjectProvider<DraftBillHorizon> draftHorizon;
+    private final BillingProperties properties;
+    private final TaskScheduler taskScheduler;
 
     // Cron expression explanation:
     // second minute hour dayOfMonth month dayOfWeek
     // 0 0 4 1 * * => 4:00:00 AM on day 1 of every month
+    // Every instance fires; the partition leases decide which node generates which providers.
+    // The new current month was materialized as drafts already, so the run mostly finds its bills in place;
+    // then the draft horizon moves on by the month that has just come into reach.
     @Scheduled(cron = "0 0 4 1 * *", zone = "UTC")
+    @Timed(value = "billing.scheduler.run", extraTags = {"job", "monthlyBills"}, histogram = true)
     public void generateMonthlyBills() {
-        billingService.createBillsForCurrentMonth();
+        billingService.getObject().createBillsForCurrentMonth();
+        draftHorizon.getObject().extend();
+    }
+
+    // A run missed while no instance was up, or cut short by a restart, is resumed from its checkpoints
+    // once the application is ready. Due drafts are promoted, then the missed months and the draft horizon run
+    // one after another in a single background task, so catching up holds one scheduling thread and one worker
+    // pool at a time, and none of it delays startup.
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpMissedRuns() {
+        if (!properties.getGeneration().isCatchUpOnStartup()) {
+            return;
+        }
+        taskScheduler.schedule(this::catchUp, Instant.now());
+    }
+
+    private void catchUp() {
+        List<YearMonth> months;
+        try {
+            draftHorizon.getObject().promoteDueDrafts();
+            months = partitionedGeneration.getObject().monthsToCatchUp(YearMonth.now(ZoneOffset.UTC));
+        } catch (RuntimeException e) {
+            log.error("Looking up the bill generation runs to catch up failed", e);
+            return;
+        }
+        for (YearMonth month : months) {
+            log.info("Catching up bill generation for {}", month);
+            try {
+                partitionedGeneration.getObject().run(month);
+            } catch (RuntimeException e) {
+                log.error("Bill generation for {} failed", month, e);
+            }
+        }
+        try {
+            draftHorizon.getObject().extend();
+        } catch (RuntimeException e) {
+            log.error("Extending the draft bill horizon failed", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.example.utilitybilling.scheduler;
+
+import com.example.utilitybilling.events.SseEventBroadcaster;
+import com.example.utilitybilling.service.OutboxRelay;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+// Created at startup even with lazy initialization (prod profile): @Scheduled only registers instantiated beans.
+// Its services are looked up on the first run, so lazy initialization still keeps them out of startup.
+@Lazy(false)
+@RequiredArgsConstructor
+public class OutboxRelayPoller {
+
+    private final ObjectProvider<OutboxRelay> relay;
+    private final ObjectProvider<SseEventBroadcaster> broadcaster;
+
+    // Fallback for events the commit wake-up did not cover (other instances, failed attempts).
+    // Every instance polls; only the holder of the relay lease publishes. The first poll waits one interval.
+    @Scheduled(fixedDelayString = "${billing.events.poll-interval:PT1S}",
+            initialDelayString = "${billing.events.poll-interval:PT1S}")
+    public void relayOutboxEvents() {
+        relay.getObject().drain();
+    }
+
+    // Every instance follows the outbox for its own SSE subscribers; events of other instances arrive this way
+    @Scheduled(fixedDelayString = "${billing.events.poll-interval:PT1S}",
+            initialDelayString = "${billing.events.poll-interval:PT1S}")
+    public void pushToSubscribers() {
+        broadcaster.getObject().poll();
+    }
+
+    // Disabled ("-") unless billing.events.purge-cron is set
+    @Scheduled(cron = "${billing.events.purge-cron:-}", zone = "UTC")
+    @Timed(value = "billing.scheduler.run", extraTags = {"job", "outboxPurge"}, histogram = true)
+    public void purgePublishedEvents() {
+        relay.getObject().purge();
+    }
+}
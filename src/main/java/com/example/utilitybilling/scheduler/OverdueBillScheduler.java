@@ -0,0 +1,28 @@
+package com.example.utilitybilling.scheduler;
+
+import com.example.utilitybilling.service.OverdueBillScanner;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+// Created at startup even with lazy initialization (prod profile): @Scheduled only registers instantiated beans.
+// Its services are looked up on the first run, so lazy initialization still keeps them out of startup.
+@Lazy(false)
+@RequiredArgsConstructor
+public class OverdueBillScheduler {
+
+    private final ObjectProvider<OverdueBillScanner> scanner;
+
+    // Reminder events of bills that became overdue since the previous pass.
+    // Disabled ("-") unless billing.overdue.scan-cron is set.
+    @Scheduled(cron = "${billing.overdue.scan-cron:-}", zone = "UTC")
+    @Timed(value = "billing.scheduler.run", extraTags = {"job", "overdueScan"}, histogram = true)
+    public void scanOverdueBills() {
+        scanner.getObject().scan();
+    }
+}
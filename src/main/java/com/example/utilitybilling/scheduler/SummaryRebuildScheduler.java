@@ -0,0 +1,28 @@
+package com.example.utilitybilling.scheduler;
+
+import com.example.utilitybilling.service.BillSummaryService;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+// Created at startup even with lazy initialization (prod profile): @Scheduled only registers instantiated beans.
+// Its services are looked up on the first run, so lazy initialization still keeps them out of startup.
+@Lazy(false)
+@RequiredArgsConstructor
+public class SummaryRebuildScheduler {
+
+    private final ObjectProvider<BillSummaryService> summaryService;
+
+    // Periodic repair of the monthly summary from the bill table, in case a write bypassed the service.
+    // Disabled ("-") unless billing.summary.rebuild-cron is set.
+    @Scheduled(cron = "${billing.summary.rebuild-cron:-}", zone = "UTC")
+    @Timed(value = "billing.scheduler.run", extraTags = {"job", "summaryRebuild"}, histogram = true)
+    public void rebuildSummary() {
+        summaryService.getObject().rebuild();
+    }
+}
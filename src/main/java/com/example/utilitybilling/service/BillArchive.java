@@ -0,0 +1,312 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.metrics.BillingMetrics;
+import com.example.utilitybilling.model.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+
+// Cold storage of settled history. PAYED bills due before the month billing.archive.min-age back are moved
+// out of the bill table into bill_archive_segment, one segment (and transaction) at a time: the bills are
+// locked, written as one deflated payload, added to bill_archive_summary and deleted. bill_monthly_summary
+// keeps counting them, and its refreshes add the archived totals to the live aggregate.
+// Segments hold their bills in listing order and record their first and last (due_date, id) key; reads look the
+// segments of the requested periods up by key range and decode only those overlapping the page or stream, so
+// the live table's size no longer grows with the history and a page of an archived month decodes a segment or
+// two. Archived bills are listed, streamed and exported like live ones, but no longer updated.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BillArchive {
+
+    // The first PAYED bills of the month in listing order, from the (status, due_date, id) index
+    private static final String SELECT_SEGMENT =
+            "SELECT id, provider_id, amount, amount_entered, status, due_date, created_at, updated_at, version " +
+            "FROM bill WHERE status = :status AND provider_id IS NOT NULL AND due_date BETWEEN :start AND :end " +
+            "ORDER BY due_date, id LIMIT :limit FOR UPDATE";
+
+    // Segments of the periods whose key range reaches into [start, end]
+    private static final String SELECT_SEGMENT_KEYS =
+            "SELECT billing_period, segment, first_due_date, first_id, last_due_date, last_id " +
+            "FROM bill_archive_segment WHERE billing_period BETWEEN :fromPeriod AND :toPeriod " +
+            "AND last_due_date >= :start AND first_due_date <= :end";
+
+    private static final String MERGE_TOTAL =
+            "MERGE INTO bill_archive_summary s " +
+            "USING (VALUES (CAST(:period AS INT), CAST(:providerId AS UUID), CAST(:status AS VARCHAR(20)), " +
+            "CAST(:count AS BIGINT), CAST(:amount AS DECIMAL(19, 4)))) " +
+            "AS d(period, provider_id, status, bill_count, amount_sum) " +
+            "ON s.period = d.period AND s.provider_id = d.provider_id AND s.status = d.status " +
+            "WHEN MATCHED THEN UPDATE SET bill_count = s.bill_count + d.bill_count, " +
+            "amount_sum = s.amount_sum + d.amount_sum " +
+            "WHEN NOT MATCHED THEN INSERT (period, provider_id, status, bill_count, amount_sum) " +
+            "VALUES (d.period, d.provider_id, d.status, d.bill_count, d.amount_sum)";
+
+    private static final RowMapper<Bill> BILL_ROW = (rs, row) -> {
+        BigDecimal amount = rs.getBigDecimal("amount");
+        return Bill.builder()
+                .id(rs.getObject("id", UUID.class))
+                .providerId(rs.getObject("provider_id", UUID.class))
+                .amount(amount == null ? null : Money.of(amount))
+                .amountEntered(rs.getBoolean("amount_entered"))
+                .status(BillStatus.valueOf(rs.getString("status")))
+                .dueDate(rs.getTimestamp("due_date").toLocalDateTime())
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                .version(rs.getLong("version"))
+                .build();
+    };
+
+    private static final RowMapper<SegmentKey> SEGMENT_KEY_ROW = (rs, row) -> new SegmentKey(
+            rs.getInt("billing_period"), rs.getInt("segment"),
+            key(rs.getTimestamp("first_due_date").toLocalDateTime(), rs.getObject("first_id", UUID.class)),
+            key(rs.getTimestamp("last_due_date").toLocalDateTime(), rs.getObject("last_id", UUID.class)));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BillingProperties properties;
+    private final BillingMetrics metrics;
+    private final SecondLevelCacheEvictions cacheEvictions;
+    private final OutboxWriter outbox;
+
+    // Where a segment sits in the listing order: its first and last bill as (due date, id) keys
+    private record SegmentKey(int period, int segment, Bill first, Bill last) {
+    }
+
+    // Archive the PAYED bills of every due month before the cutoff, oldest month first; returns the bills moved
+    public int archive() {
+        BillingProperties.Archive settings = properties.getArchive();
+        LocalDateTime before = cutoff().atDay(1).atStartOfDay();
+        int segmentSize = Math.max(1, settings.getSegmentSize());
+
+        int archived = 0;
+        LocalDateTime oldest;
+        while ((oldest = oldestArchivable(before)) != null) {
+            YearMonth month = YearMonth.from(oldest);
+            int monthArchived = 0;
+            int moved;
+            do {
+                moved = transactionTemplate.execute(status -> archiveSegment(month, segmentSize));
+                monthArchived += moved;
+            } while (moved == segmentSize);
+            if (monthArchived == 0) {
+                // Nothing the segment query can take (e.g. a PAYED bill without provider); stop rather than spin
+                log.warn("Archival found PAYED bills due in {} it cannot archive", month);
+                break;
+            }
+            archived += monthArchived;
+            log.info("Archived {} PAYED bills due in {}", monthArchived, month);
+        }
+        return archived;
+    }
+
+    // First month archival leaves in the bill table: only the months before it can have segments
+    public YearMonth cutoff() {
+        return YearMonth.from(LocalDate.now(ZoneOffset.UTC).minus(properties.getArchive().getMinAge()));
+    }
+
+    // The archived bills due in the month, in listing order (KeysetCursor.DUE_DATE_ID_ORDER)
+    public List<Bill> findByMonth(YearMonth month) {
+        List<Bill> bills = new ArrayList<>();
+        iterate(month.atDay(1).atStartOfDay(), month.atEndOfMonth().atTime(LocalTime.MAX), null)
+                .forEachRemaining(bills::add);
+        return bills;
+    }
+
+    // Up to limit archived bills of the month after the cursor key (from the start when null), in listing order
+    public List<Bill> findPage(YearMonth month, KeysetCursor.DueDateId after, int limit) {
+        Iterator<Bill> bills = iterate(month.atDay(1).atStartOfDay(), month.atEndOfMonth().atTime(LocalTime.MAX),
+                after);
+        List<Bill> page = new ArrayList<>(Math.min(limit, 1024));
+        while (page.size() < limit && bills.hasNext()) {
+            page.add(bills.next());
+        }
+        return page;
+    }
+
+    // The archived bills due within [start, end] and after the cursor key (when given), in listing order.
+    // One query finds the segments of those periods by key range (none for months nothing was archived of,
+    // and no query at all for a range starting at or after the cutoff); a segment is decoded only once the
+    // merge reaches its first key, so a consumer that stops early, or a range covering part of a month, leaves
+    // the other segments alone.
+    public Iterator<Bill> iterate(LocalDateTime start, LocalDateTime end, KeysetCursor.DueDateId after) {
+        if (!YearMonth.from(start).isBefore(cutoff())) {
+            return Collections.emptyIterator();
+        }
+        Bill afterKey = after == null ? null : key(after.dueDate(), after.id());
+        List<SegmentKey> segments = new ArrayList<>(jdbcTemplate.query(SELECT_SEGMENT_KEYS, new MapSqlParameterSource()
+                .addValue("fromPeriod", BillSummaryService.period(YearMonth.from(start)))
+                .addValue("toPeriod", BillSummaryService.period(YearMonth.from(end)))
+                .addValue("start", start)
+                .addValue("end", end), SEGMENT_KEY_ROW));
+        if (afterKey != null) {
+            segments.removeIf(s -> KeysetCursor.DUE_DATE_ID_ORDER.compare(s.last(), afterKey) <= 0);
+        }
+        if (segments.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        segments.sort(Comparator.comparing(SegmentKey::first, KeysetCursor.DUE_DATE_ID_ORDER));
+        return new SegmentMerge(segments, start, end, afterKey);
+    }
+
+    private LocalDateTime oldestArchivable(LocalDateTime before) {
+        return jdbcTemplate.queryForObject(
+                "SELECT MIN(due_date) FROM bill WHERE status = :status AND due_date < :before",
+                new MapSqlParameterSource()
+                        .addValue("status", BillStatus.PAYED.name())
+                        .addValue("before", before),
+                LocalDateTime.class);
+    }
+
+    // Move up to limit PAYED bills of the month into a new segment; returns the number moved
+    private int archiveSegment(YearMonth month, int limit) {
+        List<Bill> bills = jdbcTemplate.query(SELECT_SEGMENT, new MapSqlParameterSource()
+                .addValue("status", BillStatus.PAYED.name())
+                .addValue("start", month.atDay(1).atStartOfDay())
+                .addValue("end", month.atEndOfMonth().atTime(23, 59, 59))
+                .addValue("limit", limit), BILL_ROW);
+        if (bills.isEmpty()) {
+            return 0;
+        }
+        // Already in this order from the query; sorted again so the recorded range uses the merge's comparator
+        bills.sort(KeysetCursor.DUE_DATE_ID_ORDER);
+        Bill first = bills.get(0);
+        Bill last = bills.get(bills.size() - 1);
+
+        int period = BillSummaryService.period(month);
+        Integer segment = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(segment) + 1, 0) FROM bill_archive_segment WHERE billing_period = :period",
+                Map.of("period", period), Integer.class);
+        jdbcTemplate.update("INSERT INTO bill_archive_segment (billing_period, segment, bill_count, payload, archived_at, " +
+                        "first_due_date, first_id, last_due_date, last_id) " +
+                        "VALUES (:period, :segment, :count, :payload, :now, :firstDueDate, :firstId, :lastDueDate, :lastId)",
+                new MapSqlParameterSource()
+                        .addValue("period", period)
+                        .addValue("segment", segment)
+                        .addValue("count", bills.size())
+                        .addValue("payload", BillSegmentCodec.encode(bills))
+                        .addValue("now", LocalDateTime.now(ZoneOffset.UTC))
+                        .addValue("firstDueDate", first.getDueDate())
+                        .addValue("firstId", first.getId())
+                        .addValue("lastDueDate", last.getDueDate())
+                        .addValue("lastId", last.getId()));
+        addTotals(period, bills);
+
+        List<UUID> ids = bills.stream().map(Bill::getId).toList();
+        outbox.billsDeleted(ids);
+        int deleted = jdbcTemplate.update("DELETE FROM bill WHERE id IN (:ids)", Map.of("ids", ids));
+        if (deleted != bills.size()) {
+            // The rows are locked, so this is a bug rather than a race; roll the segment back
+            throw new IllegalStateException("Archived " + bills.size() + " bills of " + month + " but deleted " + deleted);
+        }
+
+        // The deletes bypass Hibernate, like the generation batches
+        cacheEvictions.billsChanged();
+        metrics.billsArchived(bills.size());
+        return bills.size();
+    }
+
+    // Count and amount per provider and status of the segment, merged into bill_archive_summary
+    private void addTotals(int period, List<Bill> bills) {
+        record Key(UUID providerId, BillStatus status) {
+        }
+        Map<Key, long[]> totals = new HashMap<>();
+        for (Bill bill : bills) {
+            long[] total = totals.computeIfAbsent(new Key(bill.getProviderId(), bill.getStatus()), k -> new long[2]);
+            total[0]++;
+            total[1] = Math.addExact(total[1], Money.unitsOrZero(bill.getAmount()));
+        }
+        List<SqlParameterSource> batch = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> batch.add(new MapSqlParameterSource()
+                .addValue("period", period)
+                .addValue("providerId", key.providerId())
+                .addValue("status", key.status().name())
+                .addValue("count", total[0])
+                .addValue("amount", Money.toBigDecimal(total[1]))));
+        jdbcTemplate.batchUpdate(MERGE_TOTAL, batch.toArray(SqlParameterSource[]::new));
+    }
+
+    // Bill carrying only a (due date, id) listing key, as UtilityBillingService.firstAfter builds one
+    private static Bill key(LocalDateTime dueDate, UUID id) {
+        return Bill.builder().dueDate(dueDate).id(id).build();
+    }
+
+    // Decoded segments not exhausted yet, by the key of their next bill
+    private static final class SegmentCursor {
+
+        private final List<Bill> bills;
+        private int position;
+
+        private SegmentCursor(List<Bill> bills) {
+            this.bills = bills;
+        }
+
+        private Bill head() {
+            return bills.get(position);
+        }
+    }
+
+    // K-way merge of the segments in listing order. A pending segment is opened once its first key is not past
+    // the smallest bill of the open ones: nothing it holds can come earlier than that.
+    private final class SegmentMerge implements Iterator<Bill> {
+
+        private final Deque<SegmentKey> pending;
+        private final PriorityQueue<SegmentCursor> open =
+                new PriorityQueue<>((a, b) -> KeysetCursor.DUE_DATE_ID_ORDER.compare(a.head(), b.head()));
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Bill after;
+
+        private SegmentMerge(List<SegmentKey> segments, LocalDateTime start, LocalDateTime end, Bill after) {
+            this.pending = new ArrayDeque<>(segments);
+            this.start = start;
+            this.end = end;
+            this.after = after;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!pending.isEmpty() && (open.isEmpty()
+                    || KeysetCursor.DUE_DATE_ID_ORDER.compare(pending.peekFirst().first(), open.peek().head()) <= 0)) {
+                openSegment(pending.pollFirst());
+            }
+            return !open.isEmpty();
+        }
+
+        @Override
+        public Bill next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SegmentCursor cursor = open.poll();
+            Bill bill = cursor.head();
+            if (++cursor.position < cursor.bills.size()) {
+                open.add(cursor);
+            }
+            return bill;
+        }
+
+        private void openSegment(SegmentKey segment) {
+            byte[] payload = jdbcTemplate.queryForObject(
+                    "SELECT payload FROM bill_archive_segment WHERE billing_period = :period AND segment = :segment",
+                    Map.of("period", segment.period(), "segment", segment.segment()), byte[].class);
+            // Written in listing order
+            List<Bill> bills = BillSegmentCodec.decode(payload);
+            bills.removeIf(b -> b.getDueDate().isBefore(start) || b.getDueDate().isAfter(end)
+                    || (after != null && KeysetCursor.DUE_DATE_ID_ORDER.compare(b, after) <= 0));
+            if (!bills.isEmpty()) {
+                open.add(new SegmentCursor(bills));
+            }
+        }
+    }
+}
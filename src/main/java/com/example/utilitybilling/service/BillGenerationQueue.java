@@ -0,0 +1,120 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.repository.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Durable queue of bill generation work. Producers enqueue inside their own transaction, so the work exists
+// exactly when the change that caused it committed; pollers claim batches under a lease and run one
+// set-based generation pass per month for the whole batch. Failed work is retried with exponential backoff.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BillGenerationQueue {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final BillGenerationTaskRepository taskRepository;
+    private final UtilityProviderRepository providerRepository;
+    private final MonthlyBillGenerator billGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final BillingProperties properties;
+
+    // Queue the provider's bill of the month within the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(UUID providerId, YearMonth month) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        taskRepository.save(BillGenerationTask.builder()
+                .id(UUID.randomUUID())
+                .providerId(providerId)
+                .runMonth(month.toString())
+                .status(BillGenerationTaskStatus.PENDING)
+                .attempts(0)
+                .availableAt(now)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    // Claim and process one batch of due tasks; returns the number of tasks claimed
+    public int processBatch() {
+        BillingProperties.Tasks config = properties.getTasks();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<UUID> candidates = taskRepository.findClaimableIds(now, BillGenerationTaskStatus.PENDING,
+                BillGenerationTaskStatus.RUNNING, Limit.of(config.getBatchSize()));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        UUID token = UUID.randomUUID();
+        if (taskRepository.claim(candidates, token, now.plus(config.getLeaseDuration()), now,
+                BillGenerationTaskStatus.PENDING, BillGenerationTaskStatus.RUNNING) == 0) {
+            return 0;
+        }
+        List<BillGenerationTask> tasks = taskRepository.findByClaimToken(token);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                generate(tasks);
+                taskRepository.deleteByClaimToken(token);
+            });
+        } catch (RuntimeException e) {
+            // Isolate the failing tasks: retry the batch one task per transaction
+            log.warn("Bill generation batch of {} tasks failed, retrying them one by one", tasks.size(), e);
+            tasks.forEach(this::processAlone);
+        }
+        return tasks.size();
+    }
+
+    private void processAlone(BillGenerationTask task) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                generate(List.of(task));
+                taskRepository.deleteById(task.getId());
+            });
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> reschedule(task.getId(), e));
+        }
+    }
+
+    private void generate(List<BillGenerationTask> tasks) {
+        Map<String, Set<UUID>> providersByMonth = tasks.stream().collect(Collectors.groupingBy(
+                BillGenerationTask::getRunMonth, TreeMap::new,
+                Collectors.mapping(BillGenerationTask::getProviderId, Collectors.toSet())));
+        // Providers deleted in the meantime are simply not found, their tasks complete without a bill
+        providersByMonth.forEach((month, providerIds) -> billGenerator.createMissingBills(
+                providerRepository.findAllById(providerIds), YearMonth.parse(month)));
+    }
+
+    private void reschedule(UUID taskId, RuntimeException failure) {
+        taskRepository.findById(taskId).ifPresent(task -> {
+            BillingProperties.Tasks config = properties.getTasks();
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            int attempts = task.getAttempts() + 1;
+            boolean exhausted = attempts >= config.getMaxAttempts();
+            String error = String.valueOf(failure.getMessage());
+
+            task.setAttempts(attempts);
+            task.setStatus(exhausted ? BillGenerationTaskStatus.FAILED : BillGenerationTaskStatus.PENDING);
+            task.setAvailableAt(now.plus(config.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 16))));
+            task.setClaimToken(null);
+            task.setLeaseUntil(null);
+            task.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            task.setUpdatedAt(now);
+            if (exhausted) {
+                log.error("Bill generation for provider {} ({}) failed after {} attempts",
+                        task.getProviderId(), task.getRunMonth(), attempts, failure);
+            }
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import com.example.utilitybilling.recurrence.RecurrenceIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Bounded cache of projected (DRAFT) bills of future months. Entries are dropped after commit of any
+// provider change that moves a provider into or out of a cached month, or changes what it projects there.
+// Misses are projected from a RecurrenceIndex of all providers, kept alongside and dropped on the same changes.
+@Component
+public class BillProjectionCache {
+
+    private static final String ALL_PROVIDERS = "all";
+
+    private final Cache<YearMonth, List<Bill>> cache;
+    private final Cache<String, RecurrenceIndex> schedules;
+
+    public BillProjectionCache(BillingProperties properties, MeterRegistry meterRegistry) {
+        BillingProperties.ProjectionCache config = properties.getProjectionCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(config.getTtl())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "billProjection");
+    }
+
+    // Schedules of all providers, built with the loader when missing
+    public RecurrenceIndex recurrenceIndex(Supplier<RecurrenceIndex> loader) {
+        return schedules.get(ALL_PROVIDERS, key -> loader.get());
+    }
+
+    // Cached projection of the month, computed with the loader on a miss
+    public List<Bill> get(YearMonth month, Function<YearMonth, List<Bill>> loader) {
+        return cache.get(month, ym -> List.copyOf(loader.apply(ym)));
+    }
+
+    // Cached projection of the month, or null without loading it
+    public List<Bill> getIfPresent(YearMonth month) {
+        return cache.getIfPresent(month);
+    }
+
+    // A provider was created: only the months it bills in gain a draft
+    public void invalidateForNewProvider(UtilityProvider created) {
+        afterCommit(() -> {
+            schedules.invalidateAll();
+            cache.asMap().keySet().removeIf(month -> BillingRecurrence.isDue(created, month));
+        });
+    }
+
+    // A provider changed: months billed under the old or the new schedule are affected,
+    // and nothing at all when neither the schedule nor the projected amount changed
+    public void invalidateForChangedProvider(UtilityProvider before, UtilityProvider after) {
+        boolean unchanged = before.getFrequency() == after.getFrequency()
+                && before.getDueDay() == after.getDueDay()
+                && sameAmount(before, after);
+        if (unchanged) {
+            return;
+        }
+        afterCommit(() -> {
+            schedules.invalidateAll();
+            cache.asMap().keySet().removeIf(month -> BillingRecurrence.isDue(before, month)
+                    || BillingRecurrence.isDue(after, month));
+        });
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> {
+            schedules.invalidateAll();
+            cache.invalidateAll();
+        });
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    private static boolean sameAmount(UtilityProvider before, UtilityProvider after) {
+        if (before.getDefaultAmount() == null || after.getDefaultAmount() == null) {
+            return before.getDefaultAmount() == after.getDefaultAmount();
+        }
+        return before.getDefaultAmount().compareTo(after.getDefaultAmount()) == 0;
+    }
+
+    // Evict once the change is visible to readers, otherwise a concurrent miss could reload the old state
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
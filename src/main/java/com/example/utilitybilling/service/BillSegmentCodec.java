@@ -0,0 +1,102 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.zip.*;
+
+// Payload of an archive segment: the bills as fixed binary fields (UUIDs as two longs, amounts as Money units,
+// timestamps as epoch second and nano), deflated. Settled bills of one month differ in little more than
+// their ids, so a segment ends up at a fraction of the bytes the rows and their index entries took.
+// Bills keep the order they are given in; BillArchive writes them in listing order.
+final class BillSegmentCodec {
+
+    // Layout version, first field of every payload
+    static final int FORMAT = 1;
+
+    private BillSegmentCodec() {
+    }
+
+    static byte[] encode(List<Bill> bills) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeInt(FORMAT);
+            out.writeInt(bills.size());
+            for (Bill bill : bills) {
+                writeUuid(out, bill.getId());
+                writeUuid(out, bill.getProviderId());
+                out.writeBoolean(bill.getAmount() != null);
+                if (bill.getAmount() != null) {
+                    out.writeLong(bill.getAmount().units());
+                }
+                out.writeBoolean(bill.isAmountEntered());
+                out.writeUTF(bill.getStatus().name());
+                writeTimestamp(out, bill.getDueDate());
+                writeTimestamp(out, bill.getCreatedAt());
+                writeTimestamp(out, bill.getUpdatedAt());
+                out.writeLong(bill.getVersion() == null ? 0 : bill.getVersion());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<Bill> decode(byte[] payload) {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(payload), inflater))) {
+            int format = in.readInt();
+            if (format != FORMAT) {
+                throw new IllegalStateException("Unknown archive segment format " + format);
+            }
+            int count = in.readInt();
+            List<Bill> bills = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                UUID id = readUuid(in);
+                UUID providerId = readUuid(in);
+                Money amount = in.readBoolean() ? new Money(in.readLong()) : null;
+                bills.add(Bill.builder()
+                        .id(id)
+                        .providerId(providerId)
+                        .amount(amount)
+                        .amountEntered(in.readBoolean())
+                        .status(BillStatus.valueOf(in.readUTF()))
+                        .dueDate(readTimestamp(in))
+                        .createdAt(readTimestamp(in))
+                        .updatedAt(readTimestamp(in))
+                        .version(in.readLong())
+                        .build());
+            }
+            return bills;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    // Bill timestamps are UTC wall-clock times
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.repository.*;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.*;
+import java.util.*;
+
+// Maintains bill_monthly_summary. Single-row writes apply count/amount deltas (one batched MERGE per write
+// path), set-based writes recompute the affected slice from the bill table and the archived totals,
+// and rebuild() repairs everything.
+@Service
+@RequiredArgsConstructor
+public class BillSummaryService {
+
+    private static final String PERIOD_OF_DUE_DATE = "EXTRACT(YEAR FROM due_date) * 100 + EXTRACT(MONTH FROM due_date)";
+
+    private static final String MERGE_DELTA =
+            "MERGE INTO bill_monthly_summary s " +
+            "USING (VALUES (CAST(:period AS INT), CAST(:providerId AS UUID), CAST(:status AS VARCHAR(20)), " +
+            "CAST(:countDelta AS BIGINT), CAST(:amountDelta AS DECIMAL(19, 4)))) " +
+            "AS d(period, provider_id, status, count_delta, amount_delta) " +
+            "ON s.period = d.period AND s.provider_id = d.provider_id AND s.status = d.status " +
+            "WHEN MATCHED THEN UPDATE SET bill_count = s.bill_count + d.count_delta, " +
+            "amount_sum = s.amount_sum + d.amount_delta " +
+            "WHEN NOT MATCHED THEN INSERT (period, provider_id, status, bill_count, amount_sum) " +
+            "VALUES (d.period, d.provider_id, d.status, d.count_delta, d.amount_delta)";
+
+    // Live bills plus the totals of the archived ones (BillArchive); the first placeholder filters the bill table,
+    // the second bill_archive_summary
+    private static final String AGGREGATE_BILLS =
+            "INSERT INTO bill_monthly_summary (period, provider_id, status, bill_count, amount_sum) " +
+            "SELECT period, provider_id, status, SUM(bill_count), SUM(amount_sum) " +
+            "FROM (SELECT " + PERIOD_OF_DUE_DATE + " AS period, provider_id, status, " +
+            "CAST(1 AS BIGINT) AS bill_count, COALESCE(amount, 0) AS amount_sum FROM bill " +
+            "WHERE provider_id IS NOT NULL AND due_date IS NOT NULL %s " +
+            "UNION ALL SELECT period, provider_id, status, bill_count, amount_sum FROM bill_archive_summary " +
+            "WHERE bill_count > 0 %s) b " +
+            "GROUP BY period, provider_id, status";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BillMonthlySummaryRepository summaryRepository;
+    private final EntityManager entityManager;
+
+    public static int period(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    public static int period(LocalDateTime dueDate) {
+        return dueDate.getYear() * 100 + dueDate.getMonthValue();
+    }
+
+    // Count/amount changes per summary row, collected by a write path and applied in one batch
+    public static final class Deltas {
+
+        private record Key(int period, UUID providerId, BillStatus status) {
+        }
+
+        private static final class Delta {
+            private long count;
+            // Money units
+            private long amount;
+        }
+
+        private final Map<Key, Delta> deltas = new HashMap<>();
+
+        public void added(Bill bill) {
+            add(bill.getProviderId(), bill.getDueDate(), bill.getStatus(), bill.getAmount(), 1);
+        }
+
+        public void removed(UUID providerId, LocalDateTime dueDate, BillStatus status, Money amount) {
+            add(providerId, dueDate, status, amount, -1);
+        }
+
+        public boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        private void add(UUID providerId, LocalDateTime dueDate, BillStatus status, Money amount, int sign) {
+            // Bills without provider or due date (orphans of updateBill) belong to no summary row
+            if (providerId == null || dueDate == null || status == null) {
+                return;
+            }
+            Delta delta = deltas.computeIfAbsent(new Key(period(dueDate), providerId, status), k -> new Delta());
+            delta.count += sign;
+            delta.amount = Math.addExact(delta.amount, sign * Money.unitsOrZero(amount));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Deltas deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<SqlParameterSource> batch = new ArrayList<>(deltas.deltas.size());
+        deltas.deltas.forEach((key, delta) -> {
+            if (delta.count != 0 || delta.amount != 0) {
+                batch.add(new MapSqlParameterSource()
+                        .addValue("period", key.period())
+                        .addValue("providerId", key.providerId())
+                        .addValue("status", key.status().name())
+                        .addValue("countDelta", delta.count)
+                        .addValue("amountDelta", Money.toBigDecimal(delta.amount)));
+            }
+        });
+        jdbcTemplate.batchUpdate(MERGE_DELTA, batch.toArray(SqlParameterSource[]::new));
+    }
+
+    // Recompute the summary rows of the providers from the given month on, after set-based bill changes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Collection<UUID> providerIds, YearMonth fromMonth) {
+        if (providerIds.isEmpty()) {
+            return;
+        }
+        // Pending bill inserts and updates must be visible to the aggregate
+        entityManager.flush();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("providerIds", providerIds)
+                .addValue("fromPeriod", period(fromMonth))
+                .addValue("fromDate", fromMonth.atDay(1).atStartOfDay());
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary WHERE provider_id IN (:providerIds) " +
+                "AND period >= :fromPeriod", params);
+        jdbcTemplate.update(String.format(AGGREGATE_BILLS, "AND provider_id IN (:providerIds) AND due_date >= :fromDate",
+                "AND provider_id IN (:providerIds) AND period >= :fromPeriod"), params);
+    }
+
+    // Recompute the summary rows of all providers for the given months, after set-based status changes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshMonths(YearMonth from, YearMonth to) {
+        entityManager.flush();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("fromPeriod", period(from))
+                .addValue("toPeriod", period(to))
+                .addValue("fromDate", from.atDay(1).atStartOfDay())
+                .addValue("toDate", to.atEndOfMonth().atTime(23, 59, 59));
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary WHERE period BETWEEN :fromPeriod AND :toPeriod", params);
+        jdbcTemplate.update(String.format(AGGREGATE_BILLS, "AND due_date BETWEEN :fromDate AND :toDate",
+                "AND period BETWEEN :fromPeriod AND :toPeriod"), params);
+    }
+
+    // Repair: recompute the whole table from the bills
+    @Transactional
+    public void rebuild() {
+        entityManager.flush();
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary", Map.of());
+        jdbcTemplate.update(String.format(AGGREGATE_BILLS, "", ""), Map.of());
+    }
+
+    // Totals per month and status over all providers
+    @Transactional(readOnly = true)
+    public List<BillMonthlySummaryRepository.PeriodStatusTotal> totalsByMonthAndStatus(YearMonth from, YearMonth to) {
+        return summaryRepository.sumByPeriodAndStatus(period(from), period(to));
+    }
+
+    // Totals per month and status of a single provider
+    @Transactional(readOnly = true)
+    public List<BillMonthlySummary> providerTotals(UUID providerId, YearMonth from, YearMonth to) {
+        return summaryRepository.findByProviderIdAndPeriodBetweenAndBillCountGreaterThanOrderByPeriodAscStatusAsc(
+                providerId, period(from), period(to), 0);
+    }
+}
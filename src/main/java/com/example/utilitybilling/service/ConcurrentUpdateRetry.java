@@ -0,0 +1,81 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.metrics.BillingMetrics;
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StaleStateException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Runs a write in its own transaction and repeats it, with exponential backoff and jitter, when it lost a race:
+// a stale version, a lock conflict, or a concurrent insert of the same (provider, month) bill. Every attempt
+// re-reads what it changes, so a retry either applies to the new state or ends in a conflict of its own.
+// Inside an outer transaction there is nothing to retry, the write just joins it.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrentUpdateRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final BillingProperties properties;
+    private final BillingMetrics metrics;
+
+    public <T> T execute(String operation, Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return write.get();
+        }
+        BillingProperties.Retry config = properties.getRetry();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> write.get());
+            } catch (RuntimeException e) {
+                if (!isLostRace(e)) {
+                    throw e;
+                }
+                metrics.writeRetried(operation);
+                if (attempt >= config.getMaxAttempts()) {
+                    throw new UpdateConflictException(operation + " kept conflicting with concurrent writes, " +
+                            "gave up after " + attempt + " attempts", e);
+                }
+                log.debug("{} lost a race on attempt {}, retrying", operation, attempt, e);
+                backOff(config, attempt);
+            }
+        }
+    }
+
+    private static boolean isLostRace(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException || cause instanceof DuplicateKeyException
+                    || cause instanceof OptimisticLockException || cause instanceof StaleStateException) {
+                return true;
+            }
+            // Serialization failures the translation did not classify (H2 reports concurrent updates as 90131)
+            if (cause instanceof SQLException sql
+                    && ("40001".equals(sql.getSQLState()) || "90131".equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Full jitter over an exponentially growing, capped window
+    private static void backOff(BillingProperties.Retry config, int attempt) {
+        long window = Math.min(config.getMaxBackoff().toMillis(),
+                config.getInitialBackoff().toMillis() << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(window + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpdateConflictException("Interrupted while waiting to retry", e);
+        }
+    }
+}
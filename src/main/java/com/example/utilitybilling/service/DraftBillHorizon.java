@@ -0,0 +1,98 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.repository.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Rolling horizon of persisted DRAFT bills. The months after the current one, up to billing.drafts.horizon-months
+// ahead, are generated like a regular month (partitioned, leased, resumable and in the run ledger), so their
+// bills can be read with indexed range queries and carry amounts before they are due. When a month becomes
+// the current one its drafts are promoted to NOT_ARRIVED. Months whose run has not completed yet, or beyond
+// the horizon, are still projected on the fly.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DraftBillHorizon {
+
+    private final PartitionedBillGeneration partitionedGeneration;
+    private final BillRepository billRepository;
+    private final BillSummaryService summaryService;
+    private final OutboxWriter outbox;
+    private final OverdueBillScanner overdueScanner;
+    private final BillingProperties properties;
+
+    // Months known to be fully materialized; a completed run never reopens, so only positives are remembered
+    private final Set<YearMonth> materialized = ConcurrentHashMap.newKeySet();
+
+    // Last month of the horizon
+    public YearMonth horizonEnd(YearMonth current) {
+        return current.plusMonths(Math.max(0, properties.getDrafts().getHorizonMonths()));
+    }
+
+    // Whether all bills of the future month are persisted, so reads can go to the bill table
+    public boolean isMaterialized(YearMonth month) {
+        if (materialized.contains(month)) {
+            return true;
+        }
+        boolean completed = partitionedGeneration.findRun(month)
+                .map(run -> run.getStatus() == GenerationRunStatus.COMPLETED)
+                .orElse(false);
+        if (completed) {
+            materialized.add(month);
+        }
+        return completed;
+    }
+
+    // Last month from which on, counting from the current one, every month is materialized
+    public YearMonth materializedThrough(YearMonth current) {
+        YearMonth month = current;
+        while (isMaterialized(month.plusMonths(1))) {
+            month = month.plusMonths(1);
+        }
+        return month;
+    }
+
+    // Generate the drafts of the horizon months that are not complete yet. Normally that is only the month
+    // that has just entered the horizon; months cut short earlier resume from their checkpoints.
+    public List<PartitionedBillGeneration.RunReport> extend() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<PartitionedBillGeneration.RunReport> reports = new ArrayList<>();
+        for (YearMonth month = current.plusMonths(1); !month.isAfter(horizonEnd(current)); month = month.plusMonths(1)) {
+            if (!isMaterialized(month)) {
+                reports.add(partitionedGeneration.run(month));
+            }
+        }
+        return reports;
+    }
+
+    // Turn the drafts due up to the end of the current month into NOT_ARRIVED bills. Amounts users entered
+    // meanwhile are kept; the provider default a draft was generated with is blanked, so promoted bills arrive
+    // like the ones generated for the current month. Looks back as far as the generation catch-up does.
+    // Returns the number of bills promoted.
+    @Transactional
+    public int promoteDueDrafts() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth from = current.minusMonths(properties.getGeneration().getCatchUpMonths());
+        LocalDateTime start = from.atDay(1).atStartOfDay();
+        LocalDateTime end = current.atEndOfMonth().atTime(23, 59, 59);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        billRepository.clearGeneratedAmountsDueBetween(start, end, BillStatus.DRAFT, now);
+        outbox.draftsPromoted(start, end);
+        overdueScanner.draftsPromoted(start, end);
+        int promoted = billRepository.updateStatusDueBetween(start, end, BillStatus.DRAFT, BillStatus.NOT_ARRIVED, now);
+        if (promoted > 0) {
+            // The bulk UPDATE bypasses the deltas: recompute the affected months
+            summaryService.refreshMonths(from, current);
+            log.info("Promoted {} draft bills due up to {}", promoted, current);
+        }
+        return promoted;
+    }
+}
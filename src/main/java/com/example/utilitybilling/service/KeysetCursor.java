@@ -0,0 +1,66 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.Bill;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+// Opaque continuation tokens of the keyset-paged listings: the sort key of the last row of a page,
+// URL-safe base64 encoded so clients treat it as a black box.
+public final class KeysetCursor {
+
+    // (due date, id) order of the bill listings as the database sorts it: UUIDs compare unsigned, unlike
+    // UUID.compareTo, so bills ordered in memory (projected drafts, archived bills) merge with queried pages
+    public static final Comparator<Bill> DUE_DATE_ID_ORDER = Comparator.comparing(Bill::getDueDate)
+            .thenComparing(Bill::getId, (a, b) -> {
+                int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            });
+
+    private KeysetCursor() {
+    }
+
+    // Position after a (due date, id) key
+    public record DueDateId(LocalDateTime dueDate, UUID id) {
+    }
+
+    public static String ofId(UUID id) {
+        return encode(id.toString());
+    }
+
+    public static UUID decodeId(String cursor) {
+        try {
+            return UUID.fromString(decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    public static String ofDueDateId(LocalDateTime dueDate, UUID id) {
+        return encode(dueDate + "|" + id);
+    }
+
+    public static DueDateId decodeDueDateId(String cursor) {
+        try {
+            String[] parts = decode(cursor).split("\\|", 2);
+            return new DueDateId(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.metrics.BillingMetrics;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import com.example.utilitybilling.recurrence.RecurrenceIndex;
+import com.example.utilitybilling.repository.*;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Chunked bill generation: providers are streamed in keyset-paged chunks and the bills of a chunk are written
+// as one JDBC batch of insert-or-ignore statements; the unique (provider, billing month) index decides
+// which already exist, so no lookup precedes the inserts.
+// Every chunk commits on its own, so an interrupted run keeps what it already wrote and a rerun
+// only inserts what is still missing.
+// Bills of future months are written as DRAFTs carrying the provider's default amount (see DraftBillHorizon),
+// bills of the current and past months as NOT_ARRIVED with a blank amount.
+@Component
+@RequiredArgsConstructor
+public class MonthlyBillGenerator {
+
+    // Inserts the bill unless the provider already has one in that month (uq_bill_provider_period)
+    private static final String INSERT_IF_ABSENT =
+            "MERGE INTO bill b " +
+            "USING (VALUES (CAST(:id AS UUID), CAST(:providerId AS UUID), CAST(:dueDate AS TIMESTAMP), " +
+            "CAST(:amount AS DECIMAL(19, 4)), CAST(:entered AS BOOLEAN), CAST(:now AS TIMESTAMP))) " +
+            "AS n(id, provider_id, due_date, amount, amount_entered, created_at) " +
+            "ON b.provider_id = n.provider_id " +
+            "AND b.billing_period = EXTRACT(YEAR FROM n.due_date) * 100 + EXTRACT(MONTH FROM n.due_date) " +
+            "WHEN NOT MATCHED THEN INSERT (id, provider_id, amount, amount_entered, status, due_date, created_at, " +
+            "updated_at) " +
+            "VALUES (n.id, n.provider_id, n.amount, n.amount_entered, :status, n.due_date, n.created_at, n.created_at)";
+
+    // Amounts users entered on a set of providers' unsettled bills from a day on
+    private static final String SELECT_ENTERED_AMOUNTS =
+            "SELECT provider_id, billing_period, amount FROM bill " +
+            "WHERE provider_id IN (:providerIds) AND due_date >= :from AND status NOT IN (:kept) " +
+            "AND amount_entered = TRUE";
+
+    private final UtilityProviderRepository providerRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BillingProperties properties;
+    private final BillSummaryService summaryService;
+    private final BillingMetrics metrics;
+    private final SecondLevelCacheEvictions cacheEvictions;
+    private final OutboxWriter outbox;
+    private final OverdueBillScanner overdueScanner;
+
+    public record GenerationResult(int providersScanned, int billsCreated, Duration elapsed) {
+    }
+
+    // Key of a carried-over amount: provider and billing period (yyyymm)
+    public record ProviderMonth(UUID providerId, int period) {
+    }
+
+    // One processed chunk, handed to the chunk callback
+    public record ChunkResult(int providersScanned, int billsCreated, UUID lastProviderId) {
+    }
+
+    // Generate the bills of the given month for all providers, one transaction per chunk
+    public GenerationResult generateForMonth(YearMonth month) {
+        return generateForPartition(month, ProviderPartition.ALL, null, chunk -> { });
+    }
+
+    // Generate the bills of the given month for the providers of one partition, one transaction per chunk,
+    // starting after resumeAfter when given (the checkpoint of an interrupted attempt).
+    // The callback runs inside every chunk transaction; throwing from it rolls that chunk back and aborts
+    // the partition.
+    public GenerationResult generateForPartition(YearMonth month, ProviderPartition partition, UUID resumeAfter,
+                                                 Consumer<ChunkResult> onChunk) {
+        long started = System.nanoTime();
+        int chunkSize = properties.getGeneration().getChunkSize();
+        int providersScanned = 0;
+        int billsCreated = 0;
+        UUID from = resumeAfter == null ? partition.firstId() : ProviderPartition.successor(resumeAfter);
+
+        while (from != null) {
+            UUID chunkFrom = from;
+            ChunkResult chunk = transactionTemplate.execute(
+                    status -> generateChunk(month, chunkFrom, partition.lastId(), chunkSize, onChunk));
+            if (chunk == null || chunk.providersScanned() == 0) {
+                break;
+            }
+            providersScanned += chunk.providersScanned();
+            billsCreated += chunk.billsCreated();
+            if (chunk.providersScanned() < chunkSize) {
+                break;
+            }
+            from = ProviderPartition.successor(chunk.lastProviderId());
+        }
+
+        return new GenerationResult(providersScanned, billsCreated, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    // Insert the missing bills of the given month for the given providers within the caller's transaction,
+    // together with their monthly summary deltas and BILL_CREATED events. Drafts get no event of their own,
+    // they are announced when promoted. Returns the number of bills created.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int createMissingBills(List<UtilityProvider> providers, YearMonth month) {
+        List<UtilityProvider> due = new ArrayList<>(providers.size());
+        for (UtilityProvider provider : providers) {
+            if (BillingRecurrence.isDue(provider, month)) {
+                due.add(provider);
+            }
+        }
+        return insertMissing(due, month, Map.of());
+    }
+
+    // createMissingBills for several months (e.g. the current one and the draft horizon): the providers due
+    // in each month are looked up in one RecurrenceIndex rather than checked one by one per month
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int createMissingBills(List<UtilityProvider> providers, List<YearMonth> months) {
+        return createMissingBills(providers, months, Map.of());
+    }
+
+    // As above, with the amounts users entered before a schedule change (see enteredAmounts): a new bill in
+    // one of those provider months gets the entered amount instead of the generated one
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int createMissingBills(List<UtilityProvider> providers, List<YearMonth> months,
+                                  Map<ProviderMonth, Money> entered) {
+        RecurrenceIndex index = RecurrenceIndex.of(providers);
+        int[] due = new int[index.size()];
+        int created = 0;
+        for (YearMonth month : months) {
+            int count = index.providersDueIn(BillingRecurrence.epochMonth(month), due);
+            List<UtilityProvider> dueProviders = new ArrayList<>(count);
+            for (int n = 0; n < count; n++) {
+                dueProviders.add(providers.get(due[n]));
+            }
+            created += insertMissing(dueProviders, month, entered);
+        }
+        return created;
+    }
+
+    // Amounts users entered on the providers' bills due from the given day on that are not in a kept status,
+    // by provider and month; read before a schedule change deletes those bills
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<ProviderMonth, Money> enteredAmounts(Collection<UUID> providerIds, LocalDateTime from,
+                                                    Collection<BillStatus> kept) {
+        Map<ProviderMonth, Money> amounts = new HashMap<>();
+        jdbcTemplate.query(SELECT_ENTERED_AMOUNTS, new MapSqlParameterSource()
+                .addValue("providerIds", providerIds)
+                .addValue("from", from)
+                .addValue("kept", kept.stream().map(BillStatus::name).toList()), rs -> {
+            amounts.put(new ProviderMonth(rs.getObject("provider_id", UUID.class), rs.getInt("billing_period")),
+                    Money.of(rs.getBigDecimal("amount")));
+        });
+        return amounts;
+    }
+
+    // Insert-or-ignore of the bills of providers known to be due in the month
+    private int insertMissing(List<UtilityProvider> due, YearMonth month, Map<ProviderMonth, Money> entered) {
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        // The batch bypasses Hibernate: pending provider inserts and updates must reach the database first
+        entityManager.flush();
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        boolean draft = month.isAfter(YearMonth.from(now));
+        List<Bill> candidates = new ArrayList<>(due.size());
+        SqlParameterSource[] batch = new SqlParameterSource[due.size()];
+        int period = BillSummaryService.period(month);
+        for (UtilityProvider provider : due) {
+            Money enteredAmount = entered.get(new ProviderMonth(provider.getId(), period));
+            Bill bill = Bill.builder()
+                    .id(UUID.randomUUID())
+                    .providerId(provider.getId())
+                    // blank initial amount once due
+                    .amount(enteredAmount != null ? enteredAmount : draft ? provider.getDefaultAmount() : null)
+                    .amountEntered(enteredAmount != null)
+                    .status(draft ? BillStatus.DRAFT : BillStatus.NOT_ARRIVED)
+                    .dueDate(month.atDay(Math.min(provider.getDueDay(), month.lengthOfMonth())).atStartOfDay())
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            batch[candidates.size()] = new MapSqlParameterSource()
+                    .addValue("id", bill.getId())
+                    .addValue("providerId", bill.getProviderId())
+                    .addValue("dueDate", bill.getDueDate())
+                    .addValue("amount", Money.toBigDecimal(bill.getAmount()))
+                    .addValue("entered", bill.isAmountEntered())
+                    .addValue("now", now)
+                    .addValue("status", bill.getStatus().name());
+            candidates.add(bill);
+        }
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, batch);
+
+        BillSummaryService.Deltas summary = new BillSummaryService.Deltas();
+        List<Bill> created = new ArrayList<>(inserted.length);
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                summary.added(candidates.get(i));
+                created.add(candidates.get(i));
+            }
+        }
+        summaryService.apply(summary);
+        if (!draft) {
+            outbox.billsChanged(OutboxEventType.BILL_CREATED, created);
+            // Past months and regenerated bills may be due behind the overdue scan already
+            overdueScanner.billsCreated(created);
+        }
+        if (!created.isEmpty()) {
+            // Hibernate did not see the batch, so it cannot invalidate cached month lists itself
+            cacheEvictions.billsChanged();
+        }
+        metrics.billsGenerated(created.size());
+        metrics.billsSkipped(due.size() - created.size());
+        return created.size();
+    }
+
+    private ChunkResult generateChunk(YearMonth month, UUID from, UUID to, int chunkSize, Consumer<ChunkResult> onChunk) {
+        List<UtilityProvider> providers = providerRepository.findByIdBetweenOrderByIdAsc(from, to, Limit.of(chunkSize));
+        if (providers.isEmpty()) {
+            return new ChunkResult(0, 0, null);
+        }
+
+        int created = createMissingBills(providers, month);
+        ChunkResult result = new ChunkResult(providers.size(), created, providers.get(providers.size() - 1).getId());
+        onChunk.accept(result);
+        // Drop the chunk from the persistence context before the next one
+        entityManager.clear();
+
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.events.ChangeEvent;
+import com.example.utilitybilling.events.EventSink;
+import com.example.utilitybilling.model.OutboxEvent;
+import com.example.utilitybilling.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Publishes the outbox to every EventSink in batches, in id order. Only the instance holding the relay lease
+// publishes. A batch is handed to the sinks outside any transaction and then marked published in a short one,
+// so no row lock is held while a sink blocks, and a failing sink leaves the batch unpublished for the next
+// attempt (at-least-once delivery). Woken after every commit that wrote events, and polled as a fallback
+// for events written by other instances or left behind by a failure.
+// The SSE subscribers are not a sink: every instance's SseEventBroadcaster follows the outbox table itself.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    // Takes the lease when it is free or expired, renews it for its holder; updates the row for the holder only
+    private static final String HOLD_LEASE =
+            "UPDATE outbox_relay_lease SET owner = :owner, lease_until = :until " +
+            "WHERE id = 1 AND (owner = :owner OR lease_until IS NULL OR lease_until < :now)";
+
+    private final OutboxEventRepository outboxRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final List<EventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final BillingProperties properties;
+    private final TaskScheduler taskScheduler;
+
+    // One drain at a time per instance; a wake-up during a drain queues one more
+    private final ReentrantLock draining = new ReentrantLock();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Publish batches until no unpublished event is left; returns the number of events published
+    public int drain() {
+        int batchSize = properties.getEvents().getBatchSize();
+        int published = 0;
+        draining.lock();
+        try {
+            int batch;
+            do {
+                // Renewed per batch: another instance only takes over once this one stopped publishing
+                if (!holdLease()) {
+                    break;
+                }
+                batch = publishBatch(batchSize);
+                published += batch;
+            } while (batch == batchSize);
+        } finally {
+            draining.unlock();
+        }
+        return published;
+    }
+
+    // Drain on the scheduler pool as soon as possible
+    public void publishSoon() {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        taskScheduler.schedule(() -> {
+            drainScheduled.set(false);
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                log.warn("Publishing outbox events failed, retrying with the next poll", e);
+            }
+        }, Instant.now());
+    }
+
+    // Drop published events older than the retention; returns the number deleted
+    @Transactional
+    public int purge() {
+        return outboxRepository.deletePublishedBefore(
+                LocalDateTime.now(ZoneOffset.UTC).minus(properties.getEvents().getRetention()));
+    }
+
+    private boolean holdLease() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return jdbcTemplate.update(HOLD_LEASE, new MapSqlParameterSource()
+                .addValue("owner", properties.getGeneration().getNodeId())
+                .addValue("until", now.plus(properties.getEvents().getRelayLease()))
+                .addValue("now", now)) == 1;
+    }
+
+    private int publishBatch(int batchSize) {
+        List<OutboxEvent> events = outboxRepository.findByPublishedAtIsNullOrderByIdAsc(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<ChangeEvent> batch = events.stream().map(ChangeEvent::of).toList();
+        for (EventSink sink : sinks) {
+            sink.publish(batch);
+        }
+        List<Long> ids = batch.stream().map(ChangeEvent::id).toList();
+        transactionTemplate.executeWithoutResult(status ->
+                outboxRepository.markPublished(ids, LocalDateTime.now(ZoneOffset.UTC)));
+        return events.size();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.events.SseEventBroadcaster;
+import com.example.utilitybilling.model.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.*;
+import java.util.*;
+
+// Writes change events into the outbox within the caller's transaction, so an event exists exactly when its
+// change committed. Plain JDBC batches: the identity ids would keep Hibernate from batching the inserts.
+// After the commit the relay and this instance's SSE broadcaster are woken, so sinks and subscribers see the
+// change without waiting for the next poll.
+@Service
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "VALUES (:type, :aggregateId, :providerId, :status, :amount, :dueDate, :now)";
+
+    // Drafts about to be promoted, as BILL_UPDATED events with their new status
+    private static final String INSERT_PROMOTED_DRAFTS =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "SELECT :type, id, provider_id, :to, amount, due_date, :now FROM bill " +
+            "WHERE status = :from AND due_date BETWEEN :start AND :end";
+
+    // Reminders of the bills in the given statuses whose due date lies within (after, through]
+    private static final String INSERT_OVERDUE =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "SELECT :type, id, provider_id, status, amount, due_date, :now FROM bill " +
+            "WHERE status IN (:statuses) AND due_date > :after AND due_date <= :through";
+
+    // Drafts about to be promoted that are overdue already, as BILL_OVERDUE events with their new status
+    private static final String INSERT_PROMOTED_OVERDUE =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "SELECT :type, id, provider_id, :to, amount, due_date, :now FROM bill " +
+            "WHERE status = :from AND due_date BETWEEN :start AND :through";
+
+    // Reminders of the given bills that are in the statuses and due up to through
+    private static final String INSERT_OVERDUE_AMONG =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "SELECT :type, id, provider_id, status, amount, due_date, :now FROM bill " +
+            "WHERE id IN (:ids) AND status IN (:statuses) AND due_date <= :through";
+
+    // Bills of the providers about to be deleted by a resync, as BILL_DELETED events with their last state
+    private static final String INSERT_PROVIDER_BILLS_DELETED =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "SELECT :type, id, provider_id, status, amount, due_date, :now FROM bill " +
+            "WHERE provider_id IN (:providerIds) AND due_date >= :from AND status NOT IN (:kept)";
+
+    // Bills about to be deleted by id (archived segments)
+    private static final String INSERT_BILLS_DELETED =
+            "INSERT INTO outbox_event (event_type, aggregate_id, provider_id, bill_status, amount, due_date, occurred_at) " +
+            "SELECT :type, id, provider_id, status, amount, due_date, :now FROM bill WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OutboxRelay relay;
+    private final SseEventBroadcaster broadcaster;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void billsChanged(OutboxEventType type, Collection<Bill> bills) {
+        if (bills.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<SqlParameterSource> batch = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            batch.add(event(type, bill.getId(), now)
+                    .addValue("providerId", bill.getProviderId())
+                    .addValue("status", bill.getStatus() == null ? null : bill.getStatus().name())
+                    .addValue("amount", Money.toBigDecimal(bill.getAmount()))
+                    .addValue("dueDate", bill.getDueDate()));
+        }
+        write(batch);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void providersChanged(OutboxEventType type, Collection<UtilityProvider> providers) {
+        if (providers.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<SqlParameterSource> batch = new ArrayList<>(providers.size());
+        for (UtilityProvider provider : providers) {
+            batch.add(event(type, provider.getId(), now)
+                    .addValue("providerId", provider.getId())
+                    .addValue("status", null)
+                    .addValue("amount", null)
+                    .addValue("dueDate", null));
+        }
+        write(batch);
+    }
+
+    // Events of a set-based DRAFT to NOT_ARRIVED promotion; must run before the UPDATE it announces
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int draftsPromoted(LocalDateTime start, LocalDateTime end) {
+        int written = jdbcTemplate.update(INSERT_PROMOTED_DRAFTS, new MapSqlParameterSource()
+                .addValue("type", OutboxEventType.BILL_UPDATED.name())
+                .addValue("from", BillStatus.DRAFT.name())
+                .addValue("to", BillStatus.NOT_ARRIVED.name())
+                .addValue("start", start)
+                .addValue("end", end)
+                .addValue("now", LocalDateTime.now(ZoneOffset.UTC)));
+        if (written > 0) {
+            wakeRelayAfterCommit();
+        }
+        return written;
+    }
+
+    // Events of BillRepository.deleteByProviderIdsDueFrom with the same arguments; must run before the DELETE
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int providerBillsDeleted(Collection<UUID> providerIds, LocalDateTime from, Collection<BillStatus> kept) {
+        if (providerIds.isEmpty()) {
+            return 0;
+        }
+        return writeSetBased(INSERT_PROVIDER_BILLS_DELETED, new MapSqlParameterSource()
+                .addValue("type", OutboxEventType.BILL_DELETED.name())
+                .addValue("providerIds", providerIds)
+                .addValue("from", from)
+                .addValue("kept", kept.stream().map(BillStatus::name).toList())
+                .addValue("now", LocalDateTime.now(ZoneOffset.UTC)));
+    }
+
+    // Events of a DELETE of the given bill ids; must run before it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int billsDeleted(Collection<UUID> billIds) {
+        if (billIds.isEmpty()) {
+            return 0;
+        }
+        return writeSetBased(INSERT_BILLS_DELETED, new MapSqlParameterSource()
+                .addValue("type", OutboxEventType.BILL_DELETED.name())
+                .addValue("ids", billIds)
+                .addValue("now", LocalDateTime.now(ZoneOffset.UTC)));
+    }
+
+    // BILL_OVERDUE events, set-based from the (status, due_date) index; returns the number written
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int billsOverdue(Collection<BillStatus> statuses, LocalDateTime after, LocalDateTime through) {
+        int written = jdbcTemplate.update(INSERT_OVERDUE, new MapSqlParameterSource()
+                .addValue("type", OutboxEventType.BILL_OVERDUE.name())
+                .addValue("statuses", statuses.stream().map(BillStatus::name).toList())
+                .addValue("after", after)
+                .addValue("through", through)
+                .addValue("now", LocalDateTime.now(ZoneOffset.UTC)));
+        if (written > 0) {
+            wakeRelayAfterCommit();
+        }
+        return written;
+    }
+
+    // BILL_OVERDUE events of the DRAFTs due within [start, through] a promotion to NOT_ARRIVED is about to turn
+    // unpaid; must run before the UPDATE, like draftsPromoted
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int draftsPromotedOverdue(LocalDateTime start, LocalDateTime through) {
+        return writeSetBased(INSERT_PROMOTED_OVERDUE, new MapSqlParameterSource()
+                .addValue("type", OutboxEventType.BILL_OVERDUE.name())
+                .addValue("from", BillStatus.DRAFT.name())
+                .addValue("to", BillStatus.NOT_ARRIVED.name())
+                .addValue("start", start)
+                .addValue("through", through)
+                .addValue("now", LocalDateTime.now(ZoneOffset.UTC)));
+    }
+
+    // BILL_OVERDUE events of those of the given bills in the statuses and due up to through
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int billsOverdueAmong(Collection<UUID> billIds, Collection<BillStatus> statuses, LocalDateTime through) {
+        if (billIds.isEmpty()) {
+            return 0;
+        }
+        return writeSetBased(INSERT_OVERDUE_AMONG, new MapSqlParameterSource()
+                .addValue("type", OutboxEventType.BILL_OVERDUE.name())
+                .addValue("ids", billIds)
+                .addValue("statuses", statuses.stream().map(BillStatus::name).toList())
+                .addValue("through", through)
+                .addValue("now", LocalDateTime.now(ZoneOffset.UTC)));
+    }
+
+    private static MapSqlParameterSource event(OutboxEventType type, UUID aggregateId, LocalDateTime now) {
+        return new MapSqlParameterSource()
+                .addValue("type", type.name())
+                .addValue("aggregateId", aggregateId)
+                .addValue("now", now);
+    }
+
+    private int writeSetBased(String sql, MapSqlParameterSource params) {
+        int written = jdbcTemplate.update(sql, params);
+        if (written > 0) {
+            wakeRelayAfterCommit();
+        }
+        return written;
+    }
+
+    private void write(List<SqlParameterSource> batch) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT, batch.toArray(SqlParameterSource[]::new));
+        wakeRelayAfterCommit();
+    }
+
+    private void wakeRelayAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.publishSoon();
+                broadcaster.pollSoon();
+            }
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.metrics.BillingMetrics;
+import com.example.utilitybilling.model.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.*;
+import java.util.*;
+
+// Incremental overdue detection. A bill is overdue once it is unpaid billing.overdue.grace after its due date.
+// Each pass announces the bills that became overdue since the previous one as BILL_OVERDUE events: one
+// INSERT ... SELECT over the (status, due_date) index range between the watermark and now - grace, so a pass
+// costs what the newly overdue bills cost, whatever the size of the history.
+// Scans never look behind the watermark. Bills that turn unpaid with a due date already behind it (generated for a
+// past month by a catch-up or a schedule change, DRAFTs promoted late) are announced by the change itself, under
+// the watermark row lock the scans take: a bill is announced there or by the next scan, not both.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OverdueBillScanner {
+
+    // Statuses a bill can be overdue in; DRAFTs are not due yet, PAYED bills are settled
+    public static final List<BillStatus> UNPAID_STATUSES = List.of(BillStatus.NOT_ARRIVED, BillStatus.ARRIVED);
+
+    // Generated bills due this close to the overdue boundary still take the watermark lock: a scan could only
+    // pass them while the generating transaction stays open for longer than this
+    private static final Duration LATE_MARGIN = Duration.ofHours(1);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OutboxWriter outbox;
+    private final BillingProperties properties;
+    private final BillingMetrics metrics;
+
+    // Latest due date of an overdue bill at the given time
+    public LocalDateTime overdueThrough(LocalDateTime now) {
+        return now.minus(properties.getOverdue().getGrace());
+    }
+
+    // One pass; returns the number of bills found overdue
+    @Transactional
+    public int scan() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime through = overdueThrough(now);
+        // The row lock makes concurrent passes of other instances wait, then continue from this one's watermark
+        LocalDateTime scannedThrough = lockWatermark();
+        LocalDateTime after = scannedThrough != null
+                ? scannedThrough
+                : through.minus(properties.getOverdue().getInitialLookback());
+        if (!through.isAfter(after)) {
+            return 0;
+        }
+
+        int overdue = outbox.billsOverdue(UNPAID_STATUSES, after, through);
+        jdbcTemplate.update("UPDATE overdue_scan_watermark SET scanned_through = :through, updated_at = :now WHERE id = 1",
+                new MapSqlParameterSource()
+                        .addValue("through", through)
+                        .addValue("now", now));
+        metrics.billsOverdue(overdue);
+        if (overdue > 0) {
+            log.info("{} bills due from {} through {} are overdue", overdue, after, through);
+        }
+        return overdue;
+    }
+
+    // Reminders of the bills just generated that are due at or before the watermark; call in the generating
+    // transaction, after the inserts. Returns the number announced.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int billsCreated(Collection<Bill> created) {
+        LocalDateTime latestLate = overdueThrough(LocalDateTime.now(ZoneOffset.UTC)).plus(LATE_MARGIN);
+        List<UUID> late = created.stream()
+                .filter(bill -> !bill.getDueDate().isAfter(latestLate))
+                .map(Bill::getId)
+                .toList();
+        // The month's regular generation creates bills due later, so it never waits for a scan here
+        if (late.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime scannedThrough = lockWatermark();
+        if (scannedThrough == null) {
+            // The first scan looks back itself
+            return 0;
+        }
+        return announced(outbox.billsOverdueAmong(late, UNPAID_STATUSES, scannedThrough));
+    }
+
+    // Reminders of the DRAFTs due from start on at or before the watermark that a promotion to NOT_ARRIVED is
+    // about to turn unpaid; call in the promoting transaction, before the UPDATE. Returns the number announced.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int draftsPromoted(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime scannedThrough = lockWatermark();
+        if (scannedThrough == null || scannedThrough.isBefore(start)) {
+            return 0;
+        }
+        return announced(outbox.draftsPromotedOverdue(start, end.isBefore(scannedThrough) ? end : scannedThrough));
+    }
+
+    // Locked until the caller's transaction ends
+    private LocalDateTime lockWatermark() {
+        return jdbcTemplate.queryForObject(
+                "SELECT scanned_through FROM overdue_scan_watermark WHERE id = 1 FOR UPDATE",
+                Map.of(), LocalDateTime.class);
+    }
+
+    private int announced(int overdue) {
+        metrics.billsOverdue(overdue);
+        if (overdue > 0) {
+            log.info("{} bills turned unpaid after their due date had been scanned", overdue);
+        }
+        return overdue;
+    }
+}
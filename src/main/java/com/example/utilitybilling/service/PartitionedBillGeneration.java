@@ -0,0 +1,285 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.repository.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Runs the monthly generation over hash partitions of the provider keyspace on a bounded worker pool.
+// Partitions are handed out through the lease table, so with several instances every partition is
+// processed by exactly one node and a partition left behind by a dead node is taken over once its lease expires.
+// Each chunk moves its partition's checkpoint in the chunk's own transaction, so a failed or interrupted
+// partition resumes after its last committed chunk; the run ledger sums the checkpoints up per month.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionedBillGeneration {
+
+    private final MonthlyBillGenerator billGenerator;
+    private final GenerationPartitionLeaseRepository leaseRepository;
+    private final BillGenerationRunRepository runRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BillingProperties properties;
+    private final Environment environment;
+    private final TaskScheduler taskScheduler;
+
+    public record RunReport(YearMonth month, int partitions, int partitionsProcessed, int partitionsSkipped,
+                            int partitionsFailed, long providersScanned, long billsCreated, Duration elapsed) {
+
+        public double providersPerSecond() {
+            double seconds = elapsed.toNanos() / 1_000_000_000d;
+            return seconds > 0 ? providersScanned / seconds : 0;
+        }
+    }
+
+    private enum Outcome { PROCESSED, SKIPPED, FAILED }
+
+    private record PartitionOutcome(Outcome outcome, int providersScanned, int billsCreated) {
+    }
+
+    // Generate the month's bills, resuming whatever earlier attempts left unfinished. Safe to call repeatedly
+    // and from several nodes at once: completed partitions are skipped, live leases are respected.
+    public RunReport run(YearMonth month) {
+        long started = System.nanoTime();
+        BillingProperties.Generation generation = properties.getGeneration();
+        int partitionCount = ensurePartitions(month, generation.getPartitions());
+        startRun(month, partitionCount);
+
+        ExecutorService workers = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(generation.getWorkers(), partitionCount)), workerThreadFactory());
+        List<Future<PartitionOutcome>> futures = new ArrayList<>(partitionCount);
+        int processed = 0;
+        int skipped = 0;
+        int failed = 0;
+        long providersScanned = 0;
+        long billsCreated = 0;
+        try {
+            for (int i = 0; i < partitionCount; i++) {
+                ProviderPartition partition = ProviderPartition.of(i, partitionCount);
+                futures.add(workers.submit(() -> runPartition(month, partition)));
+            }
+            for (Future<PartitionOutcome> future : futures) {
+                PartitionOutcome result = future.get();
+                switch (result.outcome()) {
+                    case PROCESSED -> processed++;
+                    case SKIPPED -> skipped++;
+                    case FAILED -> failed++;
+                }
+                providersScanned += result.providersScanned();
+                billsCreated += result.billsCreated();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bill generation for " + month + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Bill generation for " + month + " failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        recordRun(month);
+        RunReport report = new RunReport(month, partitionCount, processed, skipped, failed,
+                providersScanned, billsCreated, Duration.ofNanos(System.nanoTime() - started));
+        log.info("Bill generation {}: {}/{} partitions processed on this node ({} skipped, {} failed), " +
+                        "{} providers scanned, {} bills created in {} ms ({} providers/s)",
+                month, processed, partitionCount, skipped, failed, providersScanned, billsCreated,
+                report.elapsed().toMillis(), Math.round(report.providersPerSecond()));
+        return report;
+    }
+
+    // Start run(month) on the scheduler pool and return at once
+    public void runInBackground(YearMonth month) {
+        taskScheduler.schedule(() -> {
+            try {
+                run(month);
+            } catch (RuntimeException e) {
+                log.error("Bill generation for {} failed", month, e);
+            }
+        }, Instant.now());
+    }
+
+    // Months within the catch-up window, up to the given one, whose run is missing or unfinished.
+    // The window never reaches back before the first month in the ledger, so a fresh installation
+    // does not backfill history. Draft months ahead of the current one (DraftBillHorizon) do not count.
+    public List<YearMonth> monthsToCatchUp(YearMonth current) {
+        YearMonth earliest = runRepository.findFirstByOrderByRunMonthAsc()
+                .map(run -> YearMonth.parse(run.getRunMonth()))
+                .filter(month -> !month.isAfter(current))
+                .orElse(current);
+        YearMonth from = current.minusMonths(properties.getGeneration().getCatchUpMonths());
+        if (from.isBefore(earliest)) {
+            from = earliest;
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(current); month = month.plusMonths(1)) {
+            boolean completed = runRepository.findById(month.toString())
+                    .map(run -> run.getStatus() == GenerationRunStatus.COMPLETED)
+                    .orElse(false);
+            if (!completed) {
+                months.add(month);
+            }
+        }
+        return months;
+    }
+
+    public List<BillGenerationRun> recentRuns() {
+        return runRepository.findTop24ByOrderByRunMonthDesc();
+    }
+
+    public Optional<BillGenerationRun> findRun(YearMonth month) {
+        return runRepository.findById(month.toString());
+    }
+
+    // Create the lease rows of the month if no node did yet; returns the partition count of the run,
+    // which is fixed by whichever node created the rows first
+    private int ensurePartitions(YearMonth month, int partitionCount) {
+        String runMonth = month.toString();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!leaseRepository.findByRunMonthOrderByPartitionNo(runMonth).isEmpty()) {
+                    return;
+                }
+                LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+                List<GenerationPartitionLease> leases = new ArrayList<>(partitionCount);
+                for (int i = 0; i < partitionCount; i++) {
+                    leases.add(GenerationPartitionLease.builder()
+                            .runMonth(runMonth)
+                            .partitionNo(i)
+                            .partitionCount(partitionCount)
+                            .status(PartitionLeaseStatus.PENDING)
+                            .updatedAt(now)
+                            .build());
+                }
+                leaseRepository.saveAll(leases);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the rows concurrently
+            log.debug("Partition leases for {} created by another node", runMonth);
+        }
+        return leaseRepository.findByRunMonthOrderByPartitionNo(runMonth).get(0).getPartitionCount();
+    }
+
+    private PartitionOutcome runPartition(YearMonth month, ProviderPartition partition) {
+        String runMonth = month.toString();
+        String nodeId = properties.getGeneration().getNodeId();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        int claimed = leaseRepository.claim(runMonth, partition.index(), nodeId, now.plus(leaseDuration()), now,
+                PartitionLeaseStatus.RUNNING, PartitionLeaseStatus.COMPLETED);
+        if (claimed == 0) {
+            return new PartitionOutcome(Outcome.SKIPPED, 0, 0);
+        }
+
+        // Resume after the checkpoint of an earlier attempt, if any
+        UUID resumeAfter = leaseRepository.findById(new GenerationPartitionLease.Key(runMonth, partition.index()))
+                .map(GenerationPartitionLease::getLastProviderId)
+                .orElse(null);
+        try {
+            MonthlyBillGenerator.GenerationResult result = billGenerator.generateForPartition(month, partition,
+                    resumeAfter, chunk -> checkpoint(runMonth, partition, nodeId, chunk));
+            leaseRepository.release(runMonth, partition.index(), nodeId, PartitionLeaseStatus.COMPLETED,
+                    LocalDateTime.now(ZoneOffset.UTC));
+            return new PartitionOutcome(Outcome.PROCESSED, result.providersScanned(), result.billsCreated());
+        } catch (RuntimeException e) {
+            log.warn("Bill generation {} partition {}/{} failed", runMonth, partition.index(), partition.count(), e);
+            leaseRepository.release(runMonth, partition.index(), nodeId, PartitionLeaseStatus.FAILED,
+                    LocalDateTime.now(ZoneOffset.UTC));
+            return new PartitionOutcome(Outcome.FAILED, 0, 0);
+        }
+    }
+
+    // Runs inside each chunk transaction: the chunk only commits while this node still holds the lease,
+    // and it commits together with the checkpoint past it
+    private void checkpoint(String runMonth, ProviderPartition partition, String nodeId,
+                            MonthlyBillGenerator.ChunkResult chunk) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        int renewed = leaseRepository.checkpoint(runMonth, partition.index(), nodeId, now.plus(leaseDuration()), now,
+                PartitionLeaseStatus.RUNNING, chunk.lastProviderId(), chunk.providersScanned(), chunk.billsCreated());
+        if (renewed == 0) {
+            throw new IllegalStateException("Lost lease on partition " + partition.index() + " of " + runMonth);
+        }
+    }
+
+    // Virtual worker threads when spring.threads.virtual.enabled is set (Java 21+); the pool still bounds
+    // how many partitions run, and with them how many connections the run takes
+    private ThreadFactory workerThreadFactory() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("bill-generation-").getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory("bill-generation-");
+    }
+
+    // Open (or reopen) the ledger entry of the month
+    private void startRun(YearMonth month, int partitionCount) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+                BillGenerationRun run = runRepository.findById(month.toString()).orElse(null);
+                if (run == null) {
+                    runRepository.save(BillGenerationRun.builder()
+                            .runMonth(month.toString())
+                            .status(GenerationRunStatus.RUNNING)
+                            .partitionCount(partitionCount)
+                            .startedAt(now)
+                            .updatedAt(now)
+                            .build());
+                } else if (run.getStatus() != GenerationRunStatus.COMPLETED) {
+                    run.setStatus(GenerationRunStatus.RUNNING);
+                    run.setFinishedAt(null);
+                    run.setUpdatedAt(now);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node opened the entry concurrently
+            log.debug("Generation run {} opened by another node", month);
+        }
+    }
+
+    // Sum the partition checkpoints into the ledger. The run is COMPLETED once every partition is,
+    // FAILED when nothing is left running but some partition failed, and RUNNING while other nodes still work.
+    private void recordRun(YearMonth month) {
+        transactionTemplate.executeWithoutResult(status -> runRepository.findById(month.toString()).ifPresent(run -> {
+            List<GenerationPartitionLease> leases = leaseRepository.findByRunMonthOrderByPartitionNo(month.toString());
+            int completed = 0;
+            int failed = 0;
+            long providersScanned = 0;
+            long billsCreated = 0;
+            for (GenerationPartitionLease lease : leases) {
+                switch (lease.getStatus()) {
+                    case COMPLETED -> completed++;
+                    case FAILED -> failed++;
+                    default -> { }
+                }
+                providersScanned += lease.getProvidersScanned();
+                billsCreated += lease.getBillsCreated();
+            }
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            GenerationRunStatus runStatus = completed == leases.size() ? GenerationRunStatus.COMPLETED
+                    : completed + failed == leases.size() ? GenerationRunStatus.FAILED
+                    : GenerationRunStatus.RUNNING;
+            run.setStatus(runStatus);
+            run.setPartitionsCompleted(completed);
+            run.setPartitionsFailed(failed);
+            run.setProvidersScanned(providersScanned);
+            run.setBillsCreated(billsCreated);
+            run.setFinishedAt(runStatus == GenerationRunStatus.RUNNING ? null : now);
+            run.setUpdatedAt(now);
+        }));
+    }
+
+    private Duration leaseDuration() {
+        return properties.getGeneration().getLeaseDuration();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.utilitybilling.service;
+
+import java.util.UUID;
+
+// A contiguous slice of the provider id keyspace. Provider ids are random UUIDs and therefore already
+// uniformly hashed, so splitting the most significant 32 bits into equal ranges yields evenly sized
+// hash partitions that can still be walked with a primary key range scan.
+public record ProviderPartition(int index, int count, UUID firstId, UUID lastId) {
+
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    public static final ProviderPartition ALL = of(0, 1);
+
+    public static ProviderPartition of(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid partition " + index + " of " + count);
+        }
+        UUID first = new UUID(startHigh(index, count), 0L);
+        UUID last = index == count - 1 ? MAX_ID : new UUID(startHigh(index + 1, count) - 1, -1L);
+        return new ProviderPartition(index, count, first, last);
+    }
+
+    // Smallest id after the given one in unsigned order, or null when the keyspace is exhausted
+    static UUID successor(UUID id) {
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        if (low != -1L) {
+            return new UUID(high, low + 1);
+        }
+        return high == -1L ? null : new UUID(high + 1, 0L);
+    }
+
+    private static long startHigh(int index, int count) {
+        return (((long) index << 32) / count) << 32;
+    }
+}
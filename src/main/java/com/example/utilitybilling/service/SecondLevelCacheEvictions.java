@@ -0,0 +1,55 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.CacheRegions;
+import com.example.utilitybilling.model.UtilityProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+// Explicit evictions from the Hibernate second-level and query cache. Writes through Hibernate already
+// invalidate cached queries of the tables they touch; these cover the writes Hibernate cannot see
+// (JDBC batches) and make the write paths' intent visible. Evictions run after commit, like
+// BillProjectionCache, so a concurrent reader cannot repopulate a region with the old state.
+@Component
+public class SecondLevelCacheEvictions {
+
+    private final Cache cache;
+
+    public SecondLevelCacheEvictions(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    // Bills were inserted or changed: cached month lists may be stale
+    public void billsChanged() {
+        afterCommit(() -> cache.evictQueryRegion(CacheRegions.BILLS_BY_MONTH));
+    }
+
+    public void providerCreated() {
+        afterCommit(() -> cache.evictQueryRegion(CacheRegions.PROVIDER_LIST));
+    }
+
+    public void providerChanged(UUID providerId) {
+        afterCommit(() -> {
+            cache.evictEntityData(UtilityProvider.class, providerId);
+            cache.evictQueryRegion(CacheRegions.PROVIDER_LIST);
+        });
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
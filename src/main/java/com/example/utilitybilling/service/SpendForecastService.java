@@ -0,0 +1,140 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import com.example.utilitybilling.recurrence.SpendForecast;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+
+// Projected spend over horizons of up to billing.forecast.max-months. The schedules and estimated amounts of all
+// providers are held as a snapshot of primitive arrays, loaded with one query and reloaded in the background
+// after billing.forecast.snapshot-ttl (the previous snapshot keeps answering meanwhile), so a forecast is a single
+// pass over those arrays into a SpendForecast and no Bill is created. Provider and payment changes show up in
+// forecasts with the next reload; the forecast of a single provider reads its row directly.
+@Service
+public class SpendForecastService {
+
+    public enum Estimate {
+        // The provider's default amount, as carried by its drafts
+        DEFAULT_AMOUNT,
+        // Average of the provider's PAYED bills due in the last billing.forecast.average-months,
+        // the default amount without such bills
+        PAID_AVERAGE
+    }
+
+    // Schedule and paid history per provider; the first placeholder narrows the history, the second the providers
+    private static final String SELECT_SCHEDULES =
+            "SELECT p.frequency, p.created_at, p.default_amount, h.paid_count, h.paid_sum FROM utility_provider p " +
+            "LEFT JOIN (SELECT provider_id, SUM(bill_count) AS paid_count, SUM(amount_sum) AS paid_sum " +
+            "FROM bill_monthly_summary WHERE status = :status AND period BETWEEN :fromPeriod AND :toPeriod " +
+            "AND bill_count > 0 %s GROUP BY provider_id) h ON h.provider_id = p.id%s";
+
+    private static final BillingFrequency[] FREQUENCIES = BillingFrequency.values();
+
+    // Key of the one snapshot of all providers
+    private static final String ALL_PROVIDERS = "all";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BillingProperties properties;
+    private final LoadingCache<String, Schedules> snapshot;
+
+    public SpendForecastService(NamedParameterJdbcTemplate jdbcTemplate, BillingProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.snapshot = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(properties.getForecast().getSnapshotTtl())
+                .recordStats()
+                .build(key -> loadSchedules(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshot, "forecastSchedules");
+    }
+
+    // Providers as parallel arrays; both estimates are resolved at load time
+    private static final class Schedules {
+        private int size;
+        private byte[] frequencies = new byte[1024];
+        private int[] startMonths = new int[1024];
+        private long[] defaultUnits = new long[1024];
+        private long[] averageUnits = new long[1024];
+
+        private void add(BillingFrequency frequency, int startMonth, long defaultAmount, long averageAmount) {
+            if (size == frequencies.length) {
+                int capacity = size * 2;
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                startMonths = Arrays.copyOf(startMonths, capacity);
+                defaultUnits = Arrays.copyOf(defaultUnits, capacity);
+                averageUnits = Arrays.copyOf(averageUnits, capacity);
+            }
+            frequencies[size] = (byte) frequency.ordinal();
+            startMonths[size] = startMonth;
+            defaultUnits[size] = defaultAmount;
+            averageUnits[size] = averageAmount;
+            size++;
+        }
+    }
+
+    // Projected bill counts and amounts per month and frequency from the 'from' month through the 'to' month,
+    // over all providers or for a single one
+    public SpendForecast forecast(YearMonth from, YearMonth to, Estimate estimate, UUID providerId) {
+        if (from.isBefore(YearMonth.now(ZoneOffset.UTC))) {
+            throw new IllegalArgumentException("Invalid month range: forecasts start at the current month or later");
+        }
+        int firstMonth = BillingRecurrence.epochMonth(from);
+        int months = BillingRecurrence.epochMonth(to) - firstMonth + 1;
+        int maxMonths = properties.getForecast().getMaxMonths();
+        if (months > maxMonths) {
+            throw new IllegalArgumentException("Invalid month range: forecasts cover at most " + maxMonths + " months");
+        }
+
+        Schedules schedules = providerId == null ? snapshot.get(ALL_PROVIDERS) : loadSchedules(providerId);
+        if (providerId != null && schedules.size == 0) {
+            throw new NoSuchElementException("Provider not found: " + providerId);
+        }
+        long[] amounts = estimate == Estimate.PAID_AVERAGE ? schedules.averageUnits : schedules.defaultUnits;
+        SpendForecast forecast = new SpendForecast(firstMonth, months);
+        for (int p = 0; p < schedules.size; p++) {
+            forecast.add(FREQUENCIES[schedules.frequencies[p]], schedules.startMonths[p], amounts[p]);
+        }
+        return forecast.finish();
+    }
+
+    // All providers, or the given one only
+    private Schedules loadSchedules(UUID providerId) {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int averageMonths = Math.max(1, properties.getForecast().getAverageMonths());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("status", BillStatus.PAYED.name())
+                .addValue("fromPeriod", BillSummaryService.period(current.minusMonths(averageMonths)))
+                .addValue("toPeriod", BillSummaryService.period(current.minusMonths(1)))
+                .addValue("providerId", providerId);
+        String sql = providerId == null
+                ? String.format(SELECT_SCHEDULES, "", "")
+                : String.format(SELECT_SCHEDULES, "AND provider_id = :providerId", " WHERE p.id = :providerId");
+
+        Schedules schedules = new Schedules();
+        jdbcTemplate.query(sql, params, rs -> {
+            BigDecimal defaultAmount = rs.getBigDecimal("default_amount");
+            long defaultUnits = defaultAmount == null ? 0 : Money.toUnits(defaultAmount);
+            long paidCount = rs.getLong("paid_count");
+            BigDecimal paidSum = rs.getBigDecimal("paid_sum");
+            long averageUnits = paidCount > 0 && paidSum != null
+                    ? Money.divide(Money.toUnits(paidSum), paidCount)
+                    : defaultUnits;
+            schedules.add(BillingFrequency.valueOf(rs.getString("frequency")),
+                    BillingRecurrence.epochMonth(rs.getTimestamp("created_at").toLocalDateTime()),
+                    defaultUnits, averageUnits);
+        });
+        return schedules;
+    }
+}
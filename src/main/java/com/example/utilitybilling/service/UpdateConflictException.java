@@ -0,0 +1,18 @@
+package com.example.utilitybilling.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// An update that cannot be applied to the current state: a backward status transition, or a row
+// that kept changing under every retry. Answered with 409; the client re-reads and decides.
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UpdateConflictException extends RuntimeException {
+
+    public UpdateConflictException(String message) {
+        super(message);
+    }
+
+    public UpdateConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
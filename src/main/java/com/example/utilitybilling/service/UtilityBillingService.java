@@ -1,44 +1,136 @@
 package com.example.utilitybilling.service;
 
+import com.example.utilitybilling.metrics.BillingMetrics;
 import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import com.example.utilitybilling.recurrence.RecurrenceIndex;
 import com.example.utilitybilling.repository.*;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.*;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UtilityBillingService {
 
+    // Bills loaded with one IN query and flushed as one JDBC batch
+    private static final int BULK_UPDATE_CHUNK = 1000;
+
+    // Largest page of the keyset-paged listings
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Bills a schedule change must not throw away
+    private static final List<BillStatus> SETTLED_STATUSES = List.of(BillStatus.ARRIVED, BillStatus.PAYED);
+
     private final UtilityProviderRepository providerRepository;
     private final BillRepository billRepository;
+    private final BillArchive billArchive;
+    private final MonthlyBillGenerator billGenerator;
+    private final PartitionedBillGeneration partitionedGeneration;
+    private final DraftBillHorizon draftHorizon;
+    private final BillProjectionCache projectionCache;
+    private final BillSummaryService summaryService;
+    private final BillGenerationQueue generationQueue;
+    private final BillingMetrics metrics;
+    private final SecondLevelCacheEvictions cacheEvictions;
+    private final OutboxWriter outbox;
+    private final ConcurrentUpdateRetry updateRetry;
+    private final OverdueBillScanner overdueScanner;
+    private final EntityManager entityManager;
+
+    // One item of a bulk bill update; a null amount keeps the current amount, as in updateBill
+    public record BillChange(UUID billId, Money amount, BillStatus status) {
+    }
+
+    public enum BillChangeOutcome {
+        UPDATED,
+        NOT_FOUND,
+        // the status would move backwards
+        REJECTED
+    }
+
+    // One page of a keyset-paged listing; nextCursor is null on the last page
+    public record KeysetPage<T>(List<T> items, String nextCursor) {
+    }
+
+    public record ImportResult(int providersCreated, int billsCreated) {
+    }
+
+    public record ScheduleResyncResult(int providersUpdated, int billsDeleted, int billsCreated) {
+    }
 
     // Create new Provider
+    @Timed(value = "billing.operation", extraTags = {"operation", "createProvider"}, histogram = true)
     @Transactional
     public UtilityProvider createProvider(UtilityProvider provider) {
         provider.setId(UUID.randomUUID());
         provider.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC));
         provider = providerRepository.save(provider);
 
-        // Create bill for current month
-        createBillsForMonthByProvider(provider, ZonedDateTime.now(ZoneOffset.UTC).toLocalDate());
+        // Bills for current month and the draft horizon: queued in this transaction,
+        // created by the generation poller after commit
+        for (YearMonth month : billedMonths()) {
+            generationQueue.enqueue(provider.getId(), month);
+        }
+        projectionCache.invalidateForNewProvider(provider);
+        cacheEvictions.providerCreated();
+        outbox.providersChanged(OutboxEventType.PROVIDER_CREATED, List.of(provider));
 
         return provider;
     }
 
-    // Update existing provider with frequency changes handling
+    // Bulk import of one chunk of new providers in one transaction: the providers go out as one insert batch,
+    // then the bills of the whole chunk are created with one set-based generation pass per month
+    // (the current one and the draft horizon)
+    @Timed(value = "billing.operation", extraTags = {"operation", "importProviders"}, histogram = true)
     @Transactional
+    public ImportResult importProviders(List<UtilityProvider> providers) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (UtilityProvider provider : providers) {
+            provider.setId(UUID.randomUUID());
+            provider.setCreatedAt(now);
+            // persist (not save) so the assigned id does not trigger a merge SELECT and the insert is batched
+            entityManager.persist(provider);
+        }
+        int billsCreated = billGenerator.createMissingBills(providers, billedMonths());
+        outbox.providersChanged(OutboxEventType.PROVIDER_CREATED, providers);
+        entityManager.flush();
+        entityManager.clear();
+        projectionCache.invalidateAll();
+        cacheEvictions.providerCreated();
+        return new ImportResult(providers.size(), billsCreated);
+    }
+
+    // Update existing provider with frequency changes handling; retried when a concurrent write got there first
+    @Timed(value = "billing.operation", extraTags = {"operation", "updateProvider"}, histogram = true)
     public UtilityProvider updateProvider(UUID id, UtilityProvider updatedProvider) {
+        return updateRetry.execute("updateProvider", () -> applyProviderUpdate(id, updatedProvider));
+    }
+
+    private UtilityProvider applyProviderUpdate(UUID id, UtilityProvider updatedProvider) {
         UtilityProvider existing = providerRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Provider not found: " + id.toString()));
 
         boolean frequencyChanged = !existing.getFrequency().equals(updatedProvider.getFrequency());
         boolean dueDayChanged = existing.getDueDay() != updatedProvider.getDueDay();
+        UtilityProvider before = UtilityProvider.builder()
+                .id(existing.getId())
+                .frequency(existing.getFrequency())
+                .dueDay(existing.getDueDay())
+                .defaultAmount(existing.getDefaultAmount())
+                .createdAt(existing.getCreatedAt())
+                .build();
 
         existing.setName(updatedProvider.getName());
         existing.setFrequency(updatedProvider.getFrequency());
@@ -49,63 +141,228 @@ public class UtilityBillingService {
         existing = providerRepository.save(existing);
 
         if (frequencyChanged || dueDayChanged) {
-            // Sync bills for current month and forward accordingly
-
-            // Delete bills starting from current month for this provider
+            // Sync bills for current month and forward accordingly: one DELETE for the unsettled ones,
+            // ARRIVED and PAYED bills are kept. Amounts users entered on the deleted ones move to the
+            // regenerated bills of the same months.
             LocalDate now = LocalDate.now(ZoneOffset.UTC);
             LocalDateTime monthStart = now.withDayOfMonth(1).atStartOfDay();
-            List<Bill> billsToDelete = billRepository.findByProviderIdAndDueDateBetween(
-                    id, monthStart, monthStart.plusMonths(120)); // long future window
-            billRepository.deleteAll(billsToDelete);
-
-            // Recreate bills for current month and future if needed
-            createBillsForMonthByProvider(existing, now);
+            Map<MonthlyBillGenerator.ProviderMonth, Money> entered =
+                    billGenerator.enteredAmounts(List.of(id), monthStart, SETTLED_STATUSES);
+            outbox.providerBillsDeleted(List.of(id), monthStart, SETTLED_STATUSES);
+            metrics.billsDeleted(billRepository.deleteByProviderIdsDueFrom(List.of(id), monthStart, SETTLED_STATUSES));
+
+            // Recreate bills for current month and the draft horizon if needed
+            billGenerator.createMissingBills(List.of(existing), billedMonths(), entered);
+            // The bulk DELETE bypasses the deltas: recompute the provider's summary from this month on
+            summaryService.refresh(List.of(id), YearMonth.from(now));
         }
+        projectionCache.invalidateForChangedProvider(before, existing);
+        cacheEvictions.providerChanged(id);
+        outbox.providersChanged(OutboxEventType.PROVIDER_UPDATED, List.of(existing));
 
         return existing;
     }
 
+    // Mass schedule change: one UPDATE for the providers whose schedule actually changes and one DELETE for their
+    // unsettled bills per chunk of ids, then their current month and draft horizon are regenerated chunk-wise
+    // through the batched generator, carrying amounts users entered over to the same months.
+    // Providers already on the schedule are left alone.
+    @Timed(value = "billing.operation", extraTags = {"operation", "updateProviderSchedules"}, histogram = true)
+    public ScheduleResyncResult updateProviderSchedules(Collection<UUID> ids, BillingFrequency frequency, int dueDay) {
+        return updateRetry.execute("updateProviderSchedules", () -> applyProviderSchedules(ids, frequency, dueDay));
+    }
+
+    private ScheduleResyncResult applyProviderSchedules(Collection<UUID> ids, BillingFrequency frequency, int dueDay) {
+        List<UUID> providerIds = List.copyOf(new LinkedHashSet<>(ids));
+        YearMonth currentYM = YearMonth.now(ZoneOffset.UTC);
+        LocalDateTime monthStart = currentYM.atDay(1).atStartOfDay();
+        int updated = 0;
+        int deleted = 0;
+        int created = 0;
+
+        for (int from = 0; from < providerIds.size(); from += BULK_UPDATE_CHUNK) {
+            List<UUID> chunk = providerIds.subList(from, Math.min(from + BULK_UPDATE_CHUNK, providerIds.size()));
+            List<UUID> changed = providerRepository.findAllById(chunk).stream()
+                    .filter(p -> p.getFrequency() != frequency || p.getDueDay() != dueDay)
+                    .map(UtilityProvider::getId)
+                    .toList();
+            // The bulk UPDATE below bypasses the loaded entities
+            entityManager.clear();
+            if (changed.isEmpty()) {
+                continue;
+            }
+            Map<MonthlyBillGenerator.ProviderMonth, Money> entered =
+                    billGenerator.enteredAmounts(changed, monthStart, SETTLED_STATUSES);
+            updated += providerRepository.updateSchedule(changed, frequency, dueDay);
+            outbox.providerBillsDeleted(changed, monthStart, SETTLED_STATUSES);
+            int chunkDeleted = billRepository.deleteByProviderIdsDueFrom(changed, monthStart, SETTLED_STATUSES);
+            metrics.billsDeleted(chunkDeleted);
+            deleted += chunkDeleted;
+            List<UtilityProvider> providers = providerRepository.findAllById(changed);
+            created += billGenerator.createMissingBills(providers, billedMonths(), entered);
+            outbox.providersChanged(OutboxEventType.PROVIDER_UPDATED, providers);
+            summaryService.refresh(changed, currentYM);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        projectionCache.invalidateAll();
+
+        return new ScheduleResyncResult(updated, deleted, created);
+    }
+
     // Fetch all providers
     public List<UtilityProvider> findAllProviders() {
         return providerRepository.findAll();
     }
 
-    // Update Bill: amount & status
-    @Transactional
-    public Bill updateBill(UUID billId, BigDecimal amount, BillStatus status) {
-        Optional<Bill> billOpt = billRepository.findById(billId);
-        if (billOpt.isPresent()) {
-            Bill bill = billOpt.get();
-            if (amount != null) {
-                bill.setAmount(amount);
-            }
-            bill.setStatus(status);
-            bill.setUpdatedAt(LocalDateTime.now(ZoneOffset.UTC));
-            return billRepository.save(bill);
-        } else {
-            // Create a new bill with the provided content and new ID
-            Bill newBill = Bill.builder()
-                    .id(UUID.randomUUID())
-                    .providerId(null) // Should be set by the caller if needed
-                    .amount(amount)
-                    .status(status)
-                    .dueDate(null) // Should be set by the caller if needed
-                    .createdAt(LocalDateTime.now(ZoneOffset.UTC))
-                    .updatedAt(LocalDateTime.now(ZoneOffset.UTC))
-                    .build();
-            return billRepository.save(newBill);
+    // Page of providers in id order, starting after the cursor (or at the beginning without one)
+    @Transactional(readOnly = true)
+    public KeysetPage<UtilityProvider> findProvidersPage(int limit, String cursor) {
+        int size = pageSize(limit);
+        Limit fetch = Limit.of(size + 1);
+        List<UtilityProvider> rows = cursor == null
+                ? providerRepository.findAllByOrderByIdAsc(fetch)
+                : providerRepository.findByIdGreaterThanOrderByIdAsc(KeysetCursor.decodeId(cursor), fetch);
+        return toPage(rows, size, p -> KeysetCursor.ofId(p.getId()));
+    }
+
+    // Page of the bills of a yyyy-MM month in (due date, id) order, starting after the cursor.
+    // Like findBillsByYearMonth, future months not materialized yet are paged from the cached projection.
+    public KeysetPage<Bill> findBillsPage(String yearMonth, int limit, String cursor) {
+        YearMonth ym = parseYearMonth(yearMonth);
+        int size = pageSize(limit);
+        KeysetCursor.DueDateId after = cursor == null ? null : KeysetCursor.decodeDueDateId(cursor);
+        Function<Bill, String> cursorOf = b -> KeysetCursor.ofDueDateId(b.getDueDate(), b.getId());
+
+        if (ym.isAfter(YearMonth.now(ZoneOffset.UTC)) && !draftHorizon.isMaterialized(ym)) {
+            List<Bill> drafts = projectionCache.get(ym, this::projectBillsForMonth);
+            int from = after == null ? 0 : firstAfter(drafts, after);
+            return toPage(drafts.subList(from, Math.min(from + size + 1, drafts.size())), size, cursorOf);
+        }
+
+        LocalDateTime startOfMonth = ym.atDay(1).atStartOfDay();
+        LocalDateTime endOfMonth = ym.atEndOfMonth().atTime(23, 59, 59);
+        Limit fetch = Limit.of(size + 1);
+        List<Bill> rows = after == null
+                ? billRepository.findByDueDateBetweenOrderByDueDateAscIdAsc(startOfMonth, endOfMonth, fetch)
+                : billRepository.findPageByDueDateBetween(startOfMonth, endOfMonth, after.dueDate(), after.id(), fetch);
+        List<Bill> archived = billArchive.findPage(ym, after, size + 1);
+        if (!archived.isEmpty()) {
+            // Archived months: merge the next archived bills into the page of live ones
+            List<Bill> merged = new ArrayList<>(rows);
+            merged.addAll(archived);
+            merged.sort(KeysetCursor.DUE_DATE_ID_ORDER);
+            rows = merged.subList(0, Math.min(size + 1, merged.size()));
         }
+        return toPage(rows, size, cursorOf);
     }
 
-    // Fetch bills by yyyy-MM parameter
+    // Page of the overdue bills (unpaid past the grace period) in (due date, id) order, starting after the cursor
     @Transactional(readOnly = true)
-    public List<Bill> findBillsByYearMonth(String yearMonth) {
-        YearMonth ym;
-        try {
-            ym = YearMonth.parse(yearMonth);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid year-month format. Expected yyyy-MM");
+    public KeysetPage<Bill> findOverdueBillsPage(int limit, String cursor) {
+        int size = pageSize(limit);
+        KeysetCursor.DueDateId after = cursor == null ? null : KeysetCursor.decodeDueDateId(cursor);
+        LocalDateTime through = overdueScanner.overdueThrough(LocalDateTime.now(ZoneOffset.UTC));
+        Limit fetch = Limit.of(size + 1);
+        List<Bill> rows = after == null
+                ? billRepository.findByStatusInAndDueDateLessThanEqualOrderByDueDateAscIdAsc(
+                        OverdueBillScanner.UNPAID_STATUSES, through, fetch)
+                : billRepository.findPageByStatusInDueThrough(
+                        OverdueBillScanner.UNPAID_STATUSES, through, after.dueDate(), after.id(), fetch);
+        return toPage(rows, size, b -> KeysetCursor.ofDueDateId(b.getDueDate(), b.getId()));
+    }
+
+    // Update Bill: amount & status. The status only moves forward (UpdateConflictException otherwise);
+    // the versioned UPDATE is retried when a concurrent write got there first, so no update is lost.
+    @Timed(value = "billing.operation", extraTags = {"operation", "updateBill"}, histogram = true)
+    public Bill updateBill(UUID billId, Money amount, BillStatus status) {
+        return updateRetry.execute("updateBill", () -> applyBillUpdate(billId, amount, status));
+    }
+
+    private Bill applyBillUpdate(UUID billId, Money amount, BillStatus status) {
+        // Unknown ids (never created, or archived meanwhile) are not found, as in updateBills
+        Bill bill = billRepository.findById(billId)
+                .orElseThrow(() -> new NoSuchElementException("Bill not found: " + billId));
+        if (!bill.getStatus().canMoveTo(status)) {
+            throw new UpdateConflictException("Bill " + billId + " is " + bill.getStatus() +
+                    ", it cannot go back to " + status);
+        }
+        BillSummaryService.Deltas summary = new BillSummaryService.Deltas();
+        summary.removed(bill.getProviderId(), bill.getDueDate(), bill.getStatus(), bill.getAmount());
+        if (amount != null) {
+            bill.setAmount(amount);
+            bill.setAmountEntered(true);
         }
+        bill.setStatus(status);
+        bill.setUpdatedAt(LocalDateTime.now(ZoneOffset.UTC));
+        summary.added(bill);
+        summaryService.apply(summary);
+        cacheEvictions.billsChanged();
+        outbox.billsChanged(OutboxEventType.BILL_UPDATED, List.of(bill));
+        bill = billRepository.save(bill);
+        // Version check now, inside the retried transaction, rather than at commit
+        entityManager.flush();
+        return bill;
+    }
+
+    // Bulk update of amounts & statuses in a single transaction. Targets are loaded chunk-wise with one IN query
+    // and written back as batched versioned UPDATEs; unknown ids are reported, never created, and backward
+    // status moves are rejected. A lost race retries the whole request. Returns one outcome per change, in order.
+    @Timed(value = "billing.operation", extraTags = {"operation", "updateBills"}, histogram = true)
+    public List<BillChangeOutcome> updateBills(List<BillChange> changes) {
+        return updateRetry.execute("updateBills", () -> applyBillUpdates(changes));
+    }
+
+    private List<BillChangeOutcome> applyBillUpdates(List<BillChange> changes) {
+        List<BillChangeOutcome> outcomes = new ArrayList<>(changes.size());
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        BillSummaryService.Deltas summary = new BillSummaryService.Deltas();
+        List<Bill> updated = new ArrayList<>(changes.size());
+
+        for (int from = 0; from < changes.size(); from += BULK_UPDATE_CHUNK) {
+            List<BillChange> chunk = changes.subList(from, Math.min(from + BULK_UPDATE_CHUNK, changes.size()));
+            Set<UUID> ids = new HashSet<>(chunk.size());
+            chunk.forEach(change -> ids.add(change.billId()));
+            Map<UUID, Bill> bills = billRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Bill::getId, b -> b));
+
+            for (BillChange change : chunk) {
+                Bill bill = bills.get(change.billId());
+                if (bill == null) {
+                    outcomes.add(BillChangeOutcome.NOT_FOUND);
+                    continue;
+                }
+                if (!bill.getStatus().canMoveTo(change.status())) {
+                    outcomes.add(BillChangeOutcome.REJECTED);
+                    continue;
+                }
+                summary.removed(bill.getProviderId(), bill.getDueDate(), bill.getStatus(), bill.getAmount());
+                if (change.amount() != null) {
+                    bill.setAmount(change.amount());
+                    bill.setAmountEntered(true);
+                }
+                bill.setStatus(change.status());
+                bill.setUpdatedAt(now);
+                summary.added(bill);
+                updated.add(bill);
+                outcomes.add(BillChangeOutcome.UPDATED);
+            }
+            // Dirty entities go out as one UPDATE batch, then the chunk leaves the persistence context
+            entityManager.flush();
+            entityManager.clear();
+        }
+        // Status and amount moves net out per summary row, so the whole request is one MERGE batch
+        summaryService.apply(summary);
+        cacheEvictions.billsChanged();
+        outbox.billsChanged(OutboxEventType.BILL_UPDATED, updated);
+        return outcomes;
+    }
+
+    // Fetch bills by yyyy-MM parameter.
+    // No surrounding transaction: a cached future month must not even borrow a connection,
+    // the repository calls run in their own read-only transactions.
+    public List<Bill> findBillsByYearMonth(String yearMonth) {
+        YearMonth ym = parseYearMonth(yearMonth);
 
         LocalDateTime startOfMonth = ym.atDay(1).atStartOfDay();
         LocalDateTime endOfMonth = ym.atEndOfMonth().atTime(23, 59, 59);
@@ -113,109 +370,249 @@ public class UtilityBillingService {
         LocalDate nowDate = LocalDate.now(ZoneOffset.UTC);
         YearMonth currentYM = YearMonth.from(nowDate);
 
-        if (ym.isAfter(currentYM)) {
-            // Future month: calculate bills on the fly based on providers and frequency rules
-            List<UtilityProvider> providers = providerRepository.findAll();
-            List<Bill> bills = generateBillsForMonth(providers, startOfMonth.toLocalDate());
-            // Set status to DRAFT for all future bills
-            bills.forEach(b -> b.setStatus(BillStatus.DRAFT));
-            return bills;
+        if (ym.isAfter(currentYM) && !draftHorizon.isMaterialized(ym)) {
+            // Future month without persisted drafts: calculate bills on the fly based on providers and frequency rules,
+            // once per cache entry
+            return metrics.timeBillQuery("future", () -> projectionCache.get(ym, this::projectBillsForMonth));
         } else {
-            // Actual or past month: fetch from DB
-            return billRepository.findByDueDateBetween(startOfMonth, endOfMonth);
+            // Actual, past or materialized draft month: fetch from DB, plus the archive for archived months
+            return metrics.timeBillQuery("past", () -> withArchived(ym,
+                    billRepository.findByDueDateBetween(startOfMonth, endOfMonth)));
         }
     }
 
-    // Scheduled job: create bills for current month for all providers
-    @Transactional
-    public void createBillsForCurrentMonth() {
-        LocalDate now = LocalDate.now(ZoneOffset.UTC);
-        List<UtilityProvider> providers = providerRepository.findAll();
+    // Stream the bills due from the 'from' month through the 'to' month to the consumer: persisted bills of past,
+    // current and materialized draft months one at a time (see forEachPersistedBill), then the remaining future
+    // drafts month by month, in listing order like the projection cache holds them (and from it when the month is
+    // there already). Those are answered from a RecurrenceIndex filled by a single provider cursor, whatever the
+    // number of months, so the schedules of all providers (a few ints and references each) and the drafts of
+    // one month stay in memory while the future months are streamed.
+    @Transactional(readOnly = true)
+    public void streamBillsByMonthRange(YearMonth from, YearMonth to, Consumer<Bill> consumer) {
+        checkMonthRange(from, to);
+        YearMonth currentYM = YearMonth.now(ZoneOffset.UTC);
+        YearMonth materializedThrough = draftHorizon.materializedThrough(currentYM);
+
+        if (!from.isAfter(materializedThrough)) {
+            YearMonth lastPersisted = to.isAfter(materializedThrough) ? materializedThrough : to;
+            forEachPersistedBill(from.atDay(1).atStartOfDay(), lastPersisted.atEndOfMonth().atTime(23, 59, 59),
+                    consumer);
+        }
 
-        for (UtilityProvider provider : providers) {
-            createBillsForMonthByProvider(provider, now);
+        RecurrenceIndex index = null;
+        YearMonth month = from.isAfter(materializedThrough) ? from : materializedThrough.plusMonths(1);
+        for (; !month.isAfter(to); month = month.plusMonths(1)) {
+            List<Bill> drafts = projectionCache.getIfPresent(month);
+            if (drafts == null) {
+                if (index == null) {
+                    index = loadRecurrenceIndex();
+                }
+                drafts = projectDrafts(index, month);
+            }
+            drafts.forEach(consumer);
+        }
+    }
+
+    // Schedules of all providers in (due day, id) order, read with one cursor; the entities are not kept
+    private RecurrenceIndex loadRecurrenceIndex() {
+        RecurrenceIndex.Builder builder = new RecurrenceIndex.Builder(1024);
+        try (Stream<UtilityProvider> providers = providerRepository.streamAllByOrderByDueDayAscIdAsc()) {
+            providers.forEach(provider -> {
+                builder.add(provider);
+                entityManager.detach(provider);
+            });
+        }
+        return builder.build();
+    }
+
+    // Stream the persisted bills due from the 'from' day through the 'to' day (inclusive) with their provider's name,
+    // in (due date, id) order. Bills come from forward-only cursors and are detached once consumed (see
+    // forEachPersistedBill); provider names are resolved from a map loaded once.
+    @Transactional(readOnly = true)
+    public void exportBills(LocalDate from, LocalDate to, BiConsumer<Bill, String> consumer) {
+        checkDateRange(from, to);
+        Map<UUID, String> providerNames = new HashMap<>();
+        try (Stream<UtilityProviderRepository.ProviderName> names = providerRepository.streamAllNames()) {
+            names.forEach(p -> providerNames.put(p.getId(), p.getName()));
+        }
+
+        forEachPersistedBill(from.atStartOfDay(), to.atTime(23, 59, 59),
+                bill -> consumer.accept(bill, providerNames.get(bill.getProviderId())));
+    }
+
+    // Hand the persisted bills due within [start, end] to the consumer in (due date, id) order, within the caller's
+    // transaction: a single cursor over the live table, with the archived bills of the range merged in as the
+    // archive decodes the segments it reaches (none when nothing of the range was archived).
+    private void forEachPersistedBill(LocalDateTime start, LocalDateTime end, Consumer<Bill> consumer) {
+        Iterator<Bill> archived = billArchive.iterate(start, end, null);
+        Bill nextArchived = archived.hasNext() ? archived.next() : null;
+        try (Stream<Bill> bills = billRepository.streamByDueDateBetweenOrderByDueDateAscIdAsc(start, end)) {
+            for (Iterator<Bill> live = bills.iterator(); live.hasNext(); ) {
+                Bill bill = live.next();
+                while (nextArchived != null && KeysetCursor.DUE_DATE_ID_ORDER.compare(nextArchived, bill) < 0) {
+                    consumer.accept(nextArchived);
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                consumer.accept(bill);
+                entityManager.detach(bill);
+            }
+        }
+        for (; nextArchived != null; nextArchived = archived.hasNext() ? archived.next() : null) {
+            consumer.accept(nextArchived);
+        }
+    }
+
+    // The live bills of a month plus, for archived months, the bills moved to the archive
+    private List<Bill> withArchived(YearMonth month, List<Bill> live) {
+        List<Bill> archived = billArchive.findByMonth(month);
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<Bill> bills = new ArrayList<>(live.size() + archived.size());
+        bills.addAll(live);
+        bills.addAll(archived);
+        bills.sort(KeysetCursor.DUE_DATE_ID_ORDER);
+        return bills;
+    }
+
+    // Parse a yyyy-MM-dd request parameter
+    public LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid date format. Expected yyyy-MM-dd");
         }
     }
 
-    // Internal: generate bills for a month based on providers and the provider's frequency / createdAt rules
-    private List<Bill> generateBillsForMonth(List<UtilityProvider> providers, LocalDate targetDate) {
+    public void checkDateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid date range: 'to' must not be before 'from'");
+        }
+    }
+
+    // Parse a yyyy-MM request parameter
+    public YearMonth parseYearMonth(String yearMonth) {
+        try {
+            return YearMonth.parse(yearMonth);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid year-month format. Expected yyyy-MM");
+        }
+    }
+
+    public void checkMonthRange(YearMonth from, YearMonth to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid month range: 'to' must not be before 'from'");
+        }
+    }
+
+    // Scheduled job: create bills for current month for all providers, after promoting its drafts.
+    // Not transactional on purpose: partitions run in parallel and commit chunk by chunk.
+    public PartitionedBillGeneration.RunReport createBillsForCurrentMonth() {
+        draftHorizon.promoteDueDrafts();
+        return partitionedGeneration.run(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    // Internal: draft bills of a future month for all providers, looked up in the cached schedules
+    private List<Bill> projectBillsForMonth(YearMonth month) {
+        return projectDrafts(projectionCache.recurrenceIndex(() -> RecurrenceIndex.of(providerRepository.findAll())),
+                month);
+    }
+
+    // DRAFT bills of the month for the providers due in it, in listing order (KeysetCursor.DUE_DATE_ID_ORDER)
+    private List<Bill> projectDrafts(RecurrenceIndex index, YearMonth month) {
+        int[] due = new int[index.size()];
+        int count = index.providersDueIn(BillingRecurrence.epochMonth(month), due);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<Bill> bills = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            int p = due[n];
+            Bill draft = projectBill(index.providerId(p), index.dueDay(p), index.defaultAmount(p), month, now);
+            draft.setStatus(BillStatus.DRAFT);
+            bills.add(draft);
+        }
+        bills.sort(KeysetCursor.DUE_DATE_ID_ORDER);
+        return bills;
+    }
+
+    // Internal: generate bills for a month based on providers and the provider's frequency / createdAt rules,
+    // checking every provider (package-private for the jmh benchmarks, as the baseline of the index lookup)
+    List<Bill> generateBillsForMonth(List<UtilityProvider> providers, LocalDate targetDate) {
         List<Bill> bills = new ArrayList<>();
-        int targetYear = targetDate.getYear();
-        int targetMonth = targetDate.getMonthValue();
+        YearMonth targetYM = YearMonth.from(targetDate);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
 
         for (UtilityProvider provider : providers) {
-            if (shouldGenerateBillForMonth(provider, targetDate)) {
-                // Due date with provider's due day (limit max 28)
-                int dueDay = Math.min(provider.getDueDay(), targetDate.lengthOfMonth());
-                LocalDateTime dueDate = LocalDateTime.of(targetYear, targetMonth, dueDay, 0, 0);
-
-                // Generate bill instance WITHOUT id (as no persistence needed)
-                Bill b = Bill.builder()
-                        .id(UUID.nameUUIDFromBytes((
-                                provider.getId().toString() + "-" + targetYear + "-" + targetMonth).getBytes()))
-                        .providerId(provider.getId())
-                        .amount(provider.getDefaultAmount())
-                        .status(BillStatus.NOT_ARRIVED)
-                        .dueDate(dueDate)
-                        .createdAt(LocalDateTime.now(ZoneOffset.UTC))
-                        .updatedAt(LocalDateTime.now(ZoneOffset.UTC))
-                        .build();
-
-                bills.add(b);
+            if (BillingRecurrence.isDue(provider, targetYM)) {
+                bills.add(projectBill(provider, targetYM, now));
             }
         }
-        bills.sort(Comparator.comparing(Bill::getDueDate));
+        bills.sort(KeysetCursor.DUE_DATE_ID_ORDER);
         return bills;
     }
 
-    // Helper: decide if a bill should be generated for a provider in target month
-    private boolean shouldGenerateBillForMonth(UtilityProvider provider, LocalDate targetDate) {
-        YearMonth targetYM = YearMonth.from(targetDate);
-        YearMonth createdYM = YearMonth.from(provider.getCreatedAt());
-
-        if (targetYM.isBefore(createdYM)) return false;
-
-        switch (provider.getFrequency()) {
-            case MONTHLY:
-                return true;
-            case BI_MONTHLY:
-                int monthsDiff = (targetYM.getYear() - createdYM.getYear()) * 12 + (targetYM.getMonthValue() - createdYM.getMonthValue());
-                return monthsDiff % 2 == 0;
-            case YEARLY:
-                return targetYM.getMonthValue() == createdYM.getMonthValue();
-            default:
-                return false;
-        }
-    }
-
-    // When a new provider is created or frequency changed: create bills for current month forward
-    private void createBillsForMonthByProvider(UtilityProvider provider, LocalDate fromDate) {
-        // Only current month bill creation is required for new provider or after frequency change per spec,
-        // but follow scheduler logic: generate only the bill for the 'fromDate' month (usually current month)
-        List<Bill> existingBills = billRepository.findByProviderIdAndDueDateBetween(
-                provider.getId(),
-                fromDate.withDayOfMonth(1).atStartOfDay(),
-                fromDate.withDayOfMonth(fromDate.lengthOfMonth()).atTime(23, 59, 59)
-        );
-
-        LocalDateTime dueDateForMonthDeadline = fromDate.withDayOfMonth(Math.min(provider.getDueDay(), fromDate.lengthOfMonth())).atStartOfDay();
-
-        Optional<Bill> existingBillOpt = existingBills.stream()
-                .filter(bill -> bill.getDueDate().toLocalDate().equals(fromDate.withDayOfMonth(1)))
-                .findFirst();
-
-        if (!existingBillOpt.isPresent() && shouldGenerateBillForMonth(provider, fromDate)) {
-            Bill bill = Bill.builder()
-                    .id(UUID.randomUUID())
-                    .providerId(provider.getId())
-                    .amount(null) // blank initial amount
-                    .status(BillStatus.NOT_ARRIVED)
-                    .dueDate(dueDateForMonthDeadline)
-                    .createdAt(LocalDateTime.now(ZoneOffset.UTC))
-                    .updatedAt(LocalDateTime.now(ZoneOffset.UTC))
-                    .build();
-
-            billRepository.save(bill);
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit: must be at least 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // rows holds up to size + 1 entries; the extra one only tells that there is a next page
+    private static <T> KeysetPage<T> toPage(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(size - 1)));
+    }
+
+    // Position of the first bill after the cursor key, by binary search in the listing order
+    private static int firstAfter(List<Bill> bills, KeysetCursor.DueDateId after) {
+        Bill key = Bill.builder().dueDate(after.dueDate()).id(after.id()).build();
+        int low = 0;
+        int high = bills.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (KeysetCursor.DUE_DATE_ID_ORDER.compare(bills.get(mid), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Internal: unsaved bill of the provider in the target month
+    private Bill projectBill(UtilityProvider provider, YearMonth targetYM, LocalDateTime now) {
+        return projectBill(provider.getId(), provider.getDueDay(), provider.getDefaultAmount(), targetYM, now);
+    }
+
+    private Bill projectBill(UUID providerId, int providerDueDay, Money defaultAmount, YearMonth targetYM,
+                             LocalDateTime now) {
+        // Due date with provider's due day (limit max 28)
+        int dueDay = Math.min(providerDueDay, targetYM.lengthOfMonth());
+        LocalDateTime dueDate = targetYM.atDay(dueDay).atStartOfDay();
+
+        // Generate bill instance with a stable, name-based id (as no persistence needed)
+        return Bill.builder()
+                .id(UUID.nameUUIDFromBytes((
+                        providerId.toString() + "-" + targetYM.getYear() + "-" + targetYM.getMonthValue()).getBytes()))
+                .providerId(providerId)
+                .amount(defaultAmount)
+                .status(BillStatus.NOT_ARRIVED)
+                .dueDate(dueDate)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    // Months a provider change must have bills for: the current one and the months of the draft horizon
+    private List<YearMonth> billedMonths() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = current; !month.isAfter(draftHorizon.horizonEnd(current)); month = month.plusMonths(1)) {
+            months.add(month);
         }
+        return months;
     }
 }
\ No newline at end of file
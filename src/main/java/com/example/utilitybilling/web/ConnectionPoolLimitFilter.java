@@ -0,0 +1,99 @@
+package com.example.utilitybilling.web;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Caps the API requests in flight at the connections left to them. With virtual threads there is no
+// request thread pool left to bound concurrency, and thousands of requests would otherwise queue inside
+// Hikari until its connection timeout; here they wait briefly for a slot and are shed with 503 when none frees up.
+// Only active with virtual threads: platform request threads are bounded by the Tomcat pool already.
+// The limit leaves out the connections background work can hold at once (generation workers and the
+// scheduling pool running the task poller, outbox relay, archival and the other jobs).
+// A streamed response body runs after the filter returned, so it holds a connection without a slot;
+// the MVC async executor bounds those.
+@Slf4j
+@Component
+public class ConnectionPoolLimitFilter extends OncePerRequestFilter {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final BillingProperties.Concurrency config;
+    private final boolean active;
+    private final Semaphore slots;
+
+    public ConnectionPoolLimitFilter(BillingProperties properties, DataSource dataSource, Environment environment) {
+        this.config = properties.getConcurrency();
+        this.active = config.isEnabled() && Threading.VIRTUAL.isActive(environment);
+        int free = poolSize(dataSource) - backgroundConnections(properties, environment);
+        int limit = config.getMaxConcurrentRequests() > 0 ? config.getMaxConcurrentRequests() : Math.max(1, free);
+        this.slots = new Semaphore(limit, true);
+        if (active) {
+            if (free < 1) {
+                log.warn("Background work can hold the whole connection pool; " +
+                        "raise spring.datasource.hikari.maximum-pool-size for virtual request threads");
+            }
+            log.info("API concurrency limited to {} requests in flight", limit);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !active || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(config.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            slots.release();
+        }
+    }
+
+    // Connections generation workers and scheduled jobs may hold at the same time
+    private static int backgroundConnections(BillingProperties properties, Environment environment) {
+        return properties.getGeneration().getWorkers()
+                + environment.getProperty("spring.task.scheduling.pool.size", Integer.class, 1);
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.debug("Cannot determine the connection pool size", e);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,30 @@
+-- Cold storage of PAYED bills older than billing.archive.min-age (BillArchive). The bills of a due month are
+-- moved out of the bill table in segments of compact, deflated rows, so the live table and its indexes only
+-- hold recent and unsettled bills however long the history grows. A segment stores its bills in listing
+-- order (due_date, id) and records its first and last key, so pages and streams decode only the segments
+-- overlapping the keys they serve.
+CREATE TABLE bill_archive_segment (
+    billing_period INT NOT NULL,
+    segment INT NOT NULL,
+    bill_count INT NOT NULL,
+    payload VARBINARY NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    first_due_date TIMESTAMP NOT NULL,
+    first_id UUID NOT NULL,
+    last_due_date TIMESTAMP NOT NULL,
+    last_id UUID NOT NULL,
+    PRIMARY KEY (billing_period, segment)
+);
+
+-- Totals of the archived bills, shaped like bill_monthly_summary: summary refreshes and rebuilds add them
+-- to the aggregate of the live bills instead of decoding segments
+CREATE TABLE bill_archive_summary (
+    period INT NOT NULL,
+    provider_id UUID NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    bill_count BIGINT NOT NULL,
+    amount_sum DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY (period, provider_id, status)
+);
+
+CREATE INDEX idx_bill_archive_summary_provider_period ON bill_archive_summary(provider_id, period);
@@ -0,0 +1,13 @@
+-- Unpaid bills by due date for the overdue scanner and listing. H2 has no partial indexes, so PAYED rows stay in
+-- the index, but with status leading they form their own range that overdue lookups never enter.
+CREATE INDEX idx_bill_status_due_date_id ON bill(status, due_date, id);
+
+-- Progress of OverdueBillScanner: unpaid bills due up to scanned_through have been announced as overdue.
+-- A single row, locked by the scanning instance; NULL until the first pass.
+CREATE TABLE overdue_scan_watermark (
+    id INT PRIMARY KEY,
+    scanned_through TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL
+);
+
+INSERT INTO overdue_scan_watermark (id, scanned_through, updated_at) VALUES (1, NULL, CURRENT_TIMESTAMP);
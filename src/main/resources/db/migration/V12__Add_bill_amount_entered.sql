@@ -0,0 +1,10 @@
+-- Whether a bill's amount was entered by a user. Drafts are generated with the provider's default amount;
+-- promotion clears that default unless a user entered the amount, and schedule changes carry entered amounts
+-- over to the regenerated bills.
+ALTER TABLE bill ADD COLUMN amount_entered BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- Existing amounts count as entered, except drafts still carrying their provider's default
+UPDATE bill b SET amount_entered = TRUE
+WHERE b.amount IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM utility_provider p
+                  WHERE p.id = b.provider_id AND b.status = 'DRAFT' AND p.default_amount = b.amount);
@@ -0,0 +1,9 @@
+-- Single-row lease of OutboxRelay: only the instance holding it hands outbox events to the sinks, which
+-- happens outside of any transaction. NULL owner until the first relay takes it.
+CREATE TABLE outbox_relay_lease (
+    id INT PRIMARY KEY,
+    owner VARCHAR(255),
+    lease_until TIMESTAMP
+);
+
+INSERT INTO outbox_relay_lease (id, owner, lease_until) VALUES (1, NULL, NULL);
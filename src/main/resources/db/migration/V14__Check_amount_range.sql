@@ -0,0 +1,9 @@
+-- Amounts are read into Money, a long count of 1/10000 units: DECIMAL(19, 4) holds up to 999999999999999.9999,
+-- Money up to 922337203685477.5807. Keep the columns within what Money holds, so no stored row fails to load.
+-- Fails on existing rows beyond it; find them with
+--   SELECT id, amount FROM bill WHERE ABS(amount) > 922337203685477.5807;
+--   SELECT id, default_amount FROM utility_provider WHERE ABS(default_amount) > 922337203685477.5807;
+ALTER TABLE bill ADD CONSTRAINT ck_bill_amount_range
+    CHECK (amount BETWEEN -922337203685477.5808 AND 922337203685477.5807);
+ALTER TABLE utility_provider ADD CONSTRAINT ck_provider_default_amount_range
+    CHECK (default_amount BETWEEN -922337203685477.5808 AND 922337203685477.5807);
@@ -0,0 +1,10 @@
+CREATE TABLE generation_partition_lease (
+    run_month VARCHAR(7) NOT NULL,
+    partition_no INT NOT NULL,
+    partition_count INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    owner VARCHAR(255),
+    lease_until TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (run_month, partition_no)
+);
@@ -0,0 +1,19 @@
+-- Bill count and amount per due month (yyyymm), provider and status, maintained incrementally on every bill write
+CREATE TABLE bill_monthly_summary (
+    period INT NOT NULL,
+    provider_id UUID NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    bill_count BIGINT NOT NULL,
+    amount_sum DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY (period, provider_id, status)
+);
+
+CREATE INDEX idx_bill_summary_provider_period ON bill_monthly_summary(provider_id, period);
+
+INSERT INTO bill_monthly_summary (period, provider_id, status, bill_count, amount_sum)
+SELECT period, provider_id, status, COUNT(*), COALESCE(SUM(amount), 0)
+FROM (SELECT EXTRACT(YEAR FROM due_date) * 100 + EXTRACT(MONTH FROM due_date) AS period,
+             provider_id, status, amount
+      FROM bill
+      WHERE provider_id IS NOT NULL AND due_date IS NOT NULL) b
+GROUP BY period, provider_id, status;
@@ -0,0 +1,4 @@
+-- Keyset paging of bills walks (due_date, id); the composite index also serves every due_date range query,
+-- so the single-column index is dropped. Providers page over their primary key and need no extra index.
+CREATE INDEX idx_bill_due_date_id ON bill(due_date, id);
+DROP INDEX idx_bill_due_date;
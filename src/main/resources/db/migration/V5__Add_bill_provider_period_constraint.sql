@@ -0,0 +1,22 @@
+-- One bill per provider and due month, enforced by the database so generation can insert-or-ignore
+-- instead of checking first. billing_period is the due month as yyyymm, derived from due_date.
+
+-- Bills are financial records, so duplicates that slipped in before the constraint are not removed here: the
+-- unique index below fails the migration on them, naming a duplicate key. Resolve them by hand first; list them
+-- with
+--   SELECT provider_id, EXTRACT(YEAR FROM due_date) * 100 + EXTRACT(MONTH FROM due_date) AS period,
+--          COUNT(*), LISTAGG(id || ' ' || status, ', ')
+--   FROM bill
+--   GROUP BY provider_id, EXTRACT(YEAR FROM due_date) * 100 + EXTRACT(MONTH FROM due_date)
+--   HAVING COUNT(*) > 1;
+
+ALTER TABLE bill ADD COLUMN billing_period INT
+    GENERATED ALWAYS AS (EXTRACT(YEAR FROM due_date) * 100 + EXTRACT(MONTH FROM due_date));
+
+CREATE UNIQUE INDEX uq_bill_provider_period ON bill(provider_id, billing_period);
+
+-- Provider + due date ranges (the schedule resync deletes) are read from this index;
+-- its provider_id prefix also backs the foreign key, so the single-column index goes
+CREATE INDEX idx_bill_provider_due_date ON bill(provider_id, due_date);
+DROP INDEX idx_bill_provider_id;
+
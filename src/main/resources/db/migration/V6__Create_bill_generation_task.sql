@@ -0,0 +1,18 @@
+-- Durable queue of per-provider bill generation work (e.g. the current month's bill of a new provider).
+-- Rows are written in the transaction that creates the work and deleted once it is done.
+CREATE TABLE bill_generation_task (
+    id UUID PRIMARY KEY,
+    provider_id UUID NOT NULL,
+    run_month VARCHAR(7) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    available_at TIMESTAMP NOT NULL,
+    claim_token UUID,
+    lease_until TIMESTAMP,
+    last_error VARCHAR(1024),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_bill_generation_task_status_available ON bill_generation_task(status, available_at);
+CREATE INDEX idx_bill_generation_task_claim_token ON bill_generation_task(claim_token);
@@ -0,0 +1,19 @@
+-- Ledger of monthly bill generation runs, one row per month, summed up from the partition checkpoints
+CREATE TABLE bill_generation_run (
+    run_month VARCHAR(7) PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    partition_count INT NOT NULL,
+    partitions_completed INT NOT NULL,
+    partitions_failed INT NOT NULL,
+    providers_scanned BIGINT NOT NULL,
+    bills_created BIGINT NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Checkpoint of each partition, committed with every chunk: a resumed partition continues after
+-- last_provider_id and the counts add up over all attempts
+ALTER TABLE generation_partition_lease ADD COLUMN last_provider_id UUID;
+ALTER TABLE generation_partition_lease ADD COLUMN providers_scanned BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE generation_partition_lease ADD COLUMN bills_created BIGINT DEFAULT 0 NOT NULL;
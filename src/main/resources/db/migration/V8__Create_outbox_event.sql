@@ -0,0 +1,16 @@
+-- Transactional outbox of bill and provider changes. Rows are written in the transaction of the change
+-- and published in id order by OutboxRelay; published rows are kept for SSE replay until purged.
+CREATE TABLE outbox_event (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type VARCHAR(30) NOT NULL,
+    aggregate_id UUID NOT NULL,
+    provider_id UUID,
+    bill_status VARCHAR(20),
+    amount DECIMAL(19, 4),
+    due_date TIMESTAMP,
+    occurred_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP
+);
+
+-- Unpublished events in id order for the relay, published ones by age for the purge
+CREATE INDEX idx_outbox_event_published_at_id ON outbox_event(published_at, id);
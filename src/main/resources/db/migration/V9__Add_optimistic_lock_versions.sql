@@ -0,0 +1,4 @@
+-- Optimistic locking: Hibernate updates bills and providers only where the version it read is still current.
+-- Rows inserted by plain SQL (generation, imports) start at 0 through the default.
+ALTER TABLE bill ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE utility_provider ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
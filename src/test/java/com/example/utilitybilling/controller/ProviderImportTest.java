@@ -0,0 +1,140 @@
+package com.example.utilitybilling.controller;
+
+import com.example.utilitybilling.dto.*;
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.service.UtilityBillingService;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// CSV splitting, and imports that chunk valid rows, report invalid ones by line, report a chunk
+// the database refuses row by row and cap the reported errors
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:provider-import;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false"})
+class ProviderImportTest {
+
+    @Autowired
+    private UtilityBillingService billingService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary");
+        jdbcTemplate.update("DELETE FROM bill");
+        jdbcTemplate.update("DELETE FROM utility_provider");
+    }
+
+    @Test
+    void splitsCsvFields() {
+        assertEquals(List.of("a", "b", "c"), ProviderImport.csvFields("a,b,c"));
+        assertEquals(List.of(""), ProviderImport.csvFields(""));
+        assertEquals(List.of("a", "", "c", ""), ProviderImport.csvFields("a,,c,"));
+        // Values are not trimmed
+        assertEquals(List.of(" a ", " b"), ProviderImport.csvFields(" a , b"));
+        assertEquals(List.of("Power, Inc.", "MONTHLY"), ProviderImport.csvFields("\"Power, Inc.\",MONTHLY"));
+        assertEquals(List.of("say \"hi\"", "x"), ProviderImport.csvFields("\"say \"\"hi\"\"\",x"));
+        assertEquals(List.of("", ""), ProviderImport.csvFields("\"\",\"\""));
+        assertEquals(List.of("a\"b"), ProviderImport.csvFields("\"a\"\"b\""));
+        assertThrows(IllegalArgumentException.class, () -> ProviderImport.csvFields("\"Power, Inc.,MONTHLY"));
+        assertThrows(IllegalArgumentException.class, () -> ProviderImport.csvFields("a,\"b\"\""));
+    }
+
+    @Test
+    void importsValidRowsInChunksAndReportsInvalidOnes() {
+        ProviderImport providerImport = new ProviderImport(billingService, validator);
+        int rows = 2 * ProviderImport.CHUNK_SIZE + 5;
+        List<Long> invalidLines = new ArrayList<>();
+        for (long line = 1; line <= rows; line++) {
+            if (line % 250 == 0) {
+                invalidLines.add(line);
+                providerImport.accept(line, line % 500 == 0 ? null : request("", 29));
+            } else {
+                providerImport.accept(line, request("Provider " + line, 1 + (int) (line % 28)));
+            }
+        }
+
+        ProviderImportResponse response = providerImport.finish();
+
+        assertEquals(rows - invalidLines.size(), response.getImported());
+        assertEquals(invalidLines.size(), response.getRejected());
+        assertTrue(response.getBillsCreated() >= response.getImported(), "a current bill per provider at least");
+        assertEquals(response.getImported(), providerCount());
+        assertEquals(invalidLines, response.getErrors().stream().map(ProviderImportError::getLine).toList());
+        for (ProviderImportError error : response.getErrors()) {
+            if (error.getLine() % 500 == 0) {
+                assertEquals("empty row", error.getMessage());
+            } else {
+                // Every violation of the row, sorted by property
+                assertTrue(error.getMessage().startsWith("dueDay "), error.getMessage());
+                assertTrue(error.getMessage().contains(", name "), error.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void reportsAChunkTheDatabaseRefusesRowByRow() {
+        ProviderImport providerImport = new ProviderImport(billingService, validator);
+        int rows = ProviderImport.CHUNK_SIZE + 10;
+        for (long line = 1; line <= rows; line++) {
+            // Valid, but longer than the name column
+            String name = line == 500 ? "x".repeat(300) : "Provider " + line;
+            providerImport.accept(line, request(name, 1));
+        }
+
+        ProviderImportResponse response = providerImport.finish();
+
+        // The first chunk is rolled back as a whole, the chunk after it is imported
+        assertEquals(10, response.getImported());
+        assertEquals(ProviderImport.CHUNK_SIZE, response.getRejected());
+        assertEquals(10, providerCount());
+        assertEquals(ProviderImport.CHUNK_SIZE, response.getErrors().size());
+        for (int i = 0; i < response.getErrors().size(); i++) {
+            ProviderImportError error = response.getErrors().get(i);
+            assertEquals(i + 1, error.getLine());
+            assertTrue(error.getMessage().startsWith("not imported: "), error.getMessage());
+        }
+    }
+
+    @Test
+    void capsTheReportedErrors() {
+        ProviderImport providerImport = new ProviderImport(billingService, validator);
+        int invalid = 1500;
+        for (long line = 1; line <= invalid; line++) {
+            providerImport.accept(line, null);
+        }
+        providerImport.accept(invalid + 1, request("Provider", 1));
+
+        ProviderImportResponse response = providerImport.finish();
+
+        assertEquals(1, response.getImported());
+        assertEquals(invalid, response.getRejected());
+        assertEquals(1000, response.getErrors().size());
+        assertEquals(1, response.getErrors().get(0).getLine());
+        assertEquals(1000, response.getErrors().get(999).getLine());
+    }
+
+    private static ProviderCreateRequest request(String name, int dueDay) {
+        return ProviderCreateRequest.builder()
+                .name(name)
+                .frequency(BillingFrequency.MONTHLY)
+                .dueDay(dueDay)
+                .build();
+    }
+
+    private long providerCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM utility_provider", Long.class);
+    }
+}
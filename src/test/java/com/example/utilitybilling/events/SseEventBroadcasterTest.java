@@ -0,0 +1,117 @@
+package com.example.utilitybilling.events;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.model.OutboxEventType;
+import com.example.utilitybilling.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The poll moves past contiguous outbox ids at once, waits for a missing id up to the settle delay and then
+// skips it for good. Runs its own broadcaster, so the application's scheduled polls do not interfere.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sse-broadcaster;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false",
+        "billing.events.poll-interval=PT1H"})
+class SseEventBroadcasterTest {
+
+    private static final Duration SETTLE_DELAY = Duration.ofMillis(300);
+
+    @Autowired
+    private OutboxEventRepository outboxRepository;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SseEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void startBroadcaster() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        BillingProperties properties = new BillingProperties();
+        properties.getEvents().setBatchSize(3);
+        properties.getEvents().setSettleDelay(SETTLE_DELAY);
+        broadcaster = new SseEventBroadcaster(outboxRepository, properties, taskScheduler);
+        // Starts at the end of the (empty) table
+        assertEquals(0, broadcaster.poll());
+    }
+
+    @AfterEach
+    void stopBroadcaster() {
+        broadcaster.stopSenders();
+    }
+
+    @Test
+    void deliversContiguousEventsAcrossBatches() {
+        insertEvents(1, 2, 3, 4, 5, 6, 7);
+
+        assertEquals(7, broadcaster.poll());
+        assertEquals(0, broadcaster.poll());
+
+        insertEvents(8);
+        assertEquals(1, broadcaster.poll());
+    }
+
+    @Test
+    void waitsForAMissingIdThatCommitsLate() {
+        insertEvents(1, 2, 3, 5, 6);
+
+        // Up to the gap, then nothing while 4 may still commit
+        assertEquals(3, broadcaster.poll());
+        assertEquals(0, broadcaster.poll());
+
+        insertEvents(4);
+        assertEquals(3, broadcaster.poll());
+    }
+
+    @Test
+    void skipsAMissingIdAfterTheSettleDelay() throws InterruptedException {
+        insertEvents(1, 2, 4, 5);
+
+        assertEquals(2, broadcaster.poll());
+        assertEquals(0, broadcaster.poll());
+        Thread.sleep(SETTLE_DELAY.toMillis() + 100);
+        assertEquals(2, broadcaster.poll());
+
+        // Taken as rolled back: a late commit of 3 is not delivered, later events still are
+        insertEvents(3, 6);
+        assertEquals(1, broadcaster.poll());
+        assertEquals(0, broadcaster.poll());
+    }
+
+    @Test
+    void restartsTheSettleDelayForEachGap() throws InterruptedException {
+        insertEvents(1, 3);
+
+        assertEquals(1, broadcaster.poll());
+        Thread.sleep(SETTLE_DELAY.toMillis() + 100);
+        assertEquals(1, broadcaster.poll());
+
+        // A new gap waits its own delay, not what is left of the previous one
+        insertEvents(5);
+        assertEquals(0, broadcaster.poll());
+        Thread.sleep(SETTLE_DELAY.toMillis() + 100);
+        assertEquals(1, broadcaster.poll());
+    }
+
+    private void insertEvents(long... ids) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+        for (long id : ids) {
+            jdbcTemplate.update("INSERT INTO outbox_event (id, event_type, aggregate_id, occurred_at) " +
+                    "VALUES (?, ?, ?, ?)", id, OutboxEventType.BILL_UPDATED.name(), UUID.randomUUID(), now);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.utilitybilling.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The fixed-point arithmetic against what BigDecimal and the DECIMAL(19, 4) columns do
+class MoneyTest {
+
+    @Test
+    void toUnitsRoundsHalfUpAtScaleFour() {
+        assertEquals(10_001, Money.toUnits(new BigDecimal("1.00005")));
+        assertEquals(10_000, Money.toUnits(new BigDecimal("1.000049")));
+        assertEquals(-10_001, Money.toUnits(new BigDecimal("-1.00005")));
+        assertEquals(-10_000, Money.toUnits(new BigDecimal("-1.000049")));
+        assertEquals(1, Money.toUnits(new BigDecimal("0.00005")));
+        assertEquals(0, Money.toUnits(new BigDecimal("0.00004999")));
+        assertEquals(12_345_000, Money.toUnits(new BigDecimal("1234.5")));
+        assertEquals(-5, Money.toUnits(new BigDecimal("-0.0005")));
+    }
+
+    @Test
+    void toUnitsFailsInsteadOfWrapping() {
+        assertEquals(Long.MAX_VALUE, Money.toUnits(new BigDecimal("922337203685477.5807")));
+        assertEquals(Long.MIN_VALUE, Money.toUnits(new BigDecimal("-922337203685477.5808")));
+        // Rounds up past the long range
+        assertThrows(ArithmeticException.class, () -> Money.toUnits(new BigDecimal("922337203685477.58075")));
+        assertThrows(ArithmeticException.class, () -> Money.toUnits(new BigDecimal("-922337203685477.5809")));
+        // The request DTOs take amounts below 10^14, rounded into range
+        assertEquals(1_000_000_000_000_000_000L, Money.toUnits(new BigDecimal("99999999999999.99995")));
+        // The largest DECIMAL(19, 4) values exceed the long range; V14 keeps them out of the columns
+        assertThrows(ArithmeticException.class, () -> Money.toUnits(new BigDecimal("999999999999999.9999")));
+        assertThrows(ArithmeticException.class, () -> Money.toUnits(new BigDecimal("-999999999999999.9999")));
+    }
+
+    @Test
+    void roundTripsThroughBigDecimal() {
+        for (String amount : new String[] {"0.0000", "0.0001", "-0.0001", "12.3400", "-987654.3210"}) {
+            BigDecimal value = new BigDecimal(amount);
+            assertEquals(value, Money.of(value).toBigDecimal());
+        }
+        assertNull(Money.of(null));
+        assertNull(Money.toBigDecimal((Money) null));
+    }
+
+    @Test
+    void divideRoundsHalfAwayFromZeroForAnySigns() {
+        assertEquals(2, Money.divide(15, 10));
+        assertEquals(-2, Money.divide(-15, 10));
+        assertEquals(-2, Money.divide(15, -10));
+        assertEquals(2, Money.divide(-15, -10));
+        assertEquals(-1, Money.divide(-14, 10));
+        assertEquals(-2, Money.divide(-16, 10));
+        assertEquals(0, Money.divide(-4, 10));
+        assertEquals(-1, Money.divide(-5, 10));
+        assertEquals(-2, Money.divide(-7, 3));
+        assertEquals(-2, Money.divide(-5, 3));
+        for (long units = -50; units <= 50; units++) {
+            for (long divisor : new long[] {-7, -4, -3, -1, 1, 3, 4, 7}) {
+                assertEquals(bigDecimalDivide(units, divisor), Money.divide(units, divisor),
+                        units + " / " + divisor);
+            }
+        }
+    }
+
+    @Test
+    void divideDoesNotOverflowForLargeOperands() {
+        assertEquals(1, Money.divide(Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(-1, Money.divide(Long.MIN_VALUE + 1, Long.MAX_VALUE));
+        assertEquals(1, Money.divide(Long.MAX_VALUE / 2 + 1, Long.MAX_VALUE));
+        assertEquals(0, Money.divide(Long.MAX_VALUE / 2, Long.MAX_VALUE));
+        assertEquals(-1, Money.divide(-(Long.MAX_VALUE / 2 + 1), Long.MAX_VALUE));
+        assertEquals(1, Money.divide(Long.MIN_VALUE, Long.MIN_VALUE));
+        assertEquals(-1, Money.divide(Long.MAX_VALUE, Long.MIN_VALUE));
+        assertEquals(bigDecimalDivide(-123_456_789_012L, 1_000_003L), Money.divide(-123_456_789_012L, 1_000_003L));
+    }
+
+    @Test
+    void toStringPrintsFourPlacesWithTheSign() {
+        assertEquals("-0.0005", new Money(-5).toString());
+        assertEquals("-1.0005", new Money(-10_005).toString());
+        assertEquals("0.0001", new Money(1).toString());
+        assertEquals("0.0000", Money.ZERO.toString());
+        assertEquals("12.3400", new Money(123_400).toString());
+        assertEquals("-12.3400", new Money(-123_400).toString());
+        for (long units : new long[] {-10_000, -9_999, -1, 10_000, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(Money.toBigDecimal(units).toPlainString(), new Money(units).toString());
+        }
+    }
+
+    @Test
+    void arithmeticFailsOnOverflow() {
+        assertEquals(new Money(3), new Money(1).plus(new Money(2)));
+        assertEquals(new Money(-1), new Money(1).minus(new Money(2)));
+        assertThrows(ArithmeticException.class, () -> new Money(Long.MAX_VALUE).plus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> new Money(Long.MIN_VALUE).minus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> Money.sum(new long[] {Long.MAX_VALUE, 1}, 0, 2));
+    }
+
+    private static long bigDecimalDivide(long units, long divisor) {
+        return BigDecimal.valueOf(units).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
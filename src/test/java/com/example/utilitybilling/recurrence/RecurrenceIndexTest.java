@@ -0,0 +1,137 @@
+package com.example.utilitybilling.recurrence;
+
+import com.example.utilitybilling.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The bucket lookup against BillingRecurrence.isDue, provider by provider, month by month
+class RecurrenceIndexTest {
+
+    private static final int FIRST_MONTH = BillingRecurrence.epochMonth(2025, 1);
+
+    @Test
+    void matchesBruteForceAroundEveryStartAndBucket() {
+        Random random = new Random(42);
+        List<UtilityProvider> providers = new ArrayList<>();
+        for (BillingFrequency frequency : BillingFrequency.values()) {
+            // Every start across a few intervals, twice, so buckets hold equal start months next to each other
+            for (int start = FIRST_MONTH - 30; start <= FIRST_MONTH + 30; start++) {
+                providers.add(provider(frequency, start, random));
+                providers.add(provider(frequency, start, random));
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            BillingFrequency frequency = BillingFrequency.values()[random.nextInt(BillingFrequency.values().length)];
+            providers.add(provider(frequency, FIRST_MONTH - 400 + random.nextInt(500), random));
+        }
+        Collections.shuffle(providers, random);
+
+        assertMatchesBruteForce(providers, FIRST_MONTH - 420, FIRST_MONTH + 60);
+    }
+
+    @Test
+    void matchesBruteForceForASingleInterval() {
+        Random random = new Random(7);
+        List<UtilityProvider> providers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            providers.add(provider(BillingFrequency.QUARTERLY, FIRST_MONTH + random.nextInt(9), random));
+        }
+        assertMatchesBruteForce(providers, FIRST_MONTH - 3, FIRST_MONTH + 24);
+    }
+
+    @Test
+    void answersNothingWithoutProviders() {
+        RecurrenceIndex index = RecurrenceIndex.of(List.of());
+        assertEquals(0, index.size());
+        assertEquals(0, index.providersDueIn(FIRST_MONTH, new int[0]));
+        assertEquals(0, index.countDueIn(FIRST_MONTH));
+    }
+
+    @Test
+    void keepsProvidersAtTheirInputPosition() {
+        Random random = new Random(3);
+        RecurrenceIndex.Builder builder = new RecurrenceIndex.Builder(1);
+        List<UtilityProvider> providers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UtilityProvider provider = provider(BillingFrequency.values()[i % 4], FIRST_MONTH + random.nextInt(24), random);
+            provider.setDefaultAmount(i % 3 == 0 ? null : new Money(i * 10_000L));
+            providers.add(provider);
+            builder.add(provider);
+        }
+        // Grown well past the expected size
+        RecurrenceIndex index = builder.build();
+
+        assertEquals(providers.size(), index.size());
+        for (int p = 0; p < providers.size(); p++) {
+            UtilityProvider provider = providers.get(p);
+            assertEquals(provider.getId(), index.providerId(p));
+            assertEquals(provider.getDueDay(), index.dueDay(p));
+            assertEquals(provider.getDefaultAmount(), index.defaultAmount(p));
+            assertEquals(BillingRecurrence.epochMonth(provider.getCreatedAt()), index.startMonth(p));
+            assertEquals(provider.getFrequency().getIntervalMonths(), index.intervalMonths(p));
+        }
+    }
+
+    @Test
+    void nextDueMonthsMatchesBruteForce() {
+        Random random = new Random(11);
+        List<UtilityProvider> providers = new ArrayList<>();
+        for (BillingFrequency frequency : BillingFrequency.values()) {
+            for (int start = FIRST_MONTH - 13; start <= FIRST_MONTH + 13; start++) {
+                providers.add(provider(frequency, start, random));
+            }
+        }
+        RecurrenceIndex index = RecurrenceIndex.of(providers);
+        int[] next = new int[5];
+        for (int p = 0; p < index.size(); p++) {
+            for (int from = FIRST_MONTH - 15; from <= FIRST_MONTH + 15; from++) {
+                index.nextDueMonths(p, from, next);
+                int month = from;
+                for (int n = 0; n < next.length; n++, month++) {
+                    while (!BillingRecurrence.isDue(index.startMonth(p), index.intervalMonths(p), month)) {
+                        month++;
+                    }
+                    assertEquals(month, next[n], "due month " + n + " of provider " + p + " from " + from);
+                }
+            }
+        }
+    }
+
+    private static void assertMatchesBruteForce(List<UtilityProvider> providers, int fromMonth, int toMonth) {
+        RecurrenceIndex index = RecurrenceIndex.of(providers);
+        int[] due = new int[index.size()];
+        for (int month = fromMonth; month <= toMonth; month++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int p = 0; p < providers.size(); p++) {
+                if (BillingRecurrence.isDue(providers.get(p), BillingRecurrence.toYearMonth(month))) {
+                    expected.add(p);
+                }
+            }
+
+            int count = index.providersDueIn(month, due);
+            int[] actual = Arrays.copyOf(due, count);
+            Arrays.sort(actual);
+            String at = "providers due in " + BillingRecurrence.toYearMonth(month);
+            assertEquals(expected, Arrays.stream(actual).boxed().toList(), at);
+            assertEquals(count, index.countDueIn(month), at);
+        }
+    }
+
+    private static UtilityProvider provider(BillingFrequency frequency, int startMonth, Random random) {
+        // Anywhere within the start month; only the month counts
+        LocalDateTime createdAt = BillingRecurrence.toYearMonth(startMonth)
+                .atDay(1 + random.nextInt(28))
+                .atTime(random.nextInt(24), random.nextInt(60));
+        return UtilityProvider.builder()
+                .id(UUID.randomUUID())
+                .name("Provider")
+                .frequency(frequency)
+                .dueDay(1 + random.nextInt(28))
+                .createdAt(createdAt)
+                .build();
+    }
+}
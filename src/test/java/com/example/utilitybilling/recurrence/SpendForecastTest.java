@@ -0,0 +1,87 @@
+package com.example.utilitybilling.recurrence;
+
+import com.example.utilitybilling.model.BillingFrequency;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The strided prefix sums against counting BillingRecurrence.isDue month by month, provider by provider
+class SpendForecastTest {
+
+    private static final int FIRST_MONTH = BillingRecurrence.epochMonth(2025, 11);
+
+    private record Provider(BillingFrequency frequency, int startMonth, long amountUnits) {
+    }
+
+    @Test
+    void matchesBruteForceForProvidersBeforeWithinAndAfterTheHorizon() {
+        for (int months : new int[] {1, 2, 3, 11, 12, 13, 25, 120}) {
+            Random random = new Random(months);
+            List<Provider> providers = new ArrayList<>();
+            for (BillingFrequency frequency : BillingFrequency.values()) {
+                // Every start from well before the horizon through past its end, then some random ones
+                for (int start = FIRST_MONTH - 30; start <= FIRST_MONTH + months + 2; start++) {
+                    providers.add(new Provider(frequency, start, random.nextInt(1_000_000) - 1_000));
+                }
+                for (int i = 0; i < 50; i++) {
+                    providers.add(new Provider(frequency, FIRST_MONTH - 200 + random.nextInt(200 + months),
+                            random.nextInt(5_000_000)));
+                }
+            }
+            assertMatchesBruteForce(months, providers);
+        }
+    }
+
+    @Test
+    void countsNothingForAnEmptyForecast() {
+        SpendForecast forecast = new SpendForecast(FIRST_MONTH, 12).finish();
+        for (BillingFrequency frequency : BillingFrequency.values()) {
+            for (int m = 0; m < 12; m++) {
+                assertEquals(0, forecast.billCount(frequency, m));
+                assertEquals(0, forecast.amountUnits(frequency, m));
+            }
+        }
+    }
+
+    @Test
+    void answersOnlyBetweenFinishAndAdd() {
+        SpendForecast forecast = new SpendForecast(FIRST_MONTH, 3);
+        assertThrows(IllegalStateException.class, () -> forecast.billCount(BillingFrequency.MONTHLY, 0));
+        forecast.add(BillingFrequency.MONTHLY, FIRST_MONTH, 1);
+        forecast.finish();
+        assertThrows(IllegalStateException.class, () -> forecast.add(BillingFrequency.MONTHLY, FIRST_MONTH, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SpendForecast(FIRST_MONTH, 0));
+    }
+
+    private static void assertMatchesBruteForce(int months, List<Provider> providers) {
+        SpendForecast forecast = new SpendForecast(FIRST_MONTH, months);
+        int frequencies = BillingFrequency.values().length;
+        long[][] counts = new long[frequencies][months];
+        long[][] amounts = new long[frequencies][months];
+        for (Provider provider : providers) {
+            int interval = provider.frequency().getIntervalMonths();
+            int due = 0;
+            for (int m = 0; m < months; m++) {
+                if (BillingRecurrence.isDue(provider.startMonth(), interval, FIRST_MONTH + m)) {
+                    counts[provider.frequency().ordinal()][m]++;
+                    amounts[provider.frequency().ordinal()][m] += provider.amountUnits();
+                    due++;
+                }
+            }
+            assertEquals(due, forecast.add(provider.frequency(), provider.startMonth(), provider.amountUnits()),
+                    () -> "bills in the horizon of " + provider + " over " + months + " months");
+        }
+
+        forecast.finish();
+        for (BillingFrequency frequency : BillingFrequency.values()) {
+            for (int m = 0; m < months; m++) {
+                String month = frequency + " month " + m + " of " + months;
+                assertEquals(counts[frequency.ordinal()][m], forecast.billCount(frequency, m), month);
+                assertEquals(amounts[frequency.ordinal()][m], forecast.amountUnits(frequency, m), month);
+            }
+        }
+        assertEquals(FIRST_MONTH + months - 1, forecast.epochMonth(months - 1));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Archive segment payloads must give back every field as written, whatever the values
+class BillSegmentCodecTest {
+
+    @Test
+    void roundTripsEveryField() {
+        Bill paid = bill(Money.of(new BigDecimal("-1234.5678")), true,
+                LocalDateTime.of(2021, 3, 15, 0, 0), LocalDateTime.of(2021, 2, 28, 23, 59, 59, 999_999_999), 7L);
+        Bill blank = bill(null, false,
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1), LocalDateTime.of(2021, 3, 1, 12, 0, 0, 123_456_789), null);
+        Bill extreme = bill(new Money(Long.MIN_VALUE), false,
+                LocalDateTime.of(2021, 3, 31, 23, 59, 59, 500), LocalDateTime.of(2021, 4, 1, 0, 0), Long.MAX_VALUE);
+
+        List<Bill> decoded = BillSegmentCodec.decode(BillSegmentCodec.encode(List.of(paid, blank, extreme)));
+
+        assertEquals(3, decoded.size());
+        assertSameBill(paid, decoded.get(0));
+        assertSameBill(blank, decoded.get(1));
+        assertSameBill(extreme, decoded.get(2));
+        // Written without version; read back as 0
+        assertEquals(0L, decoded.get(1).getVersion());
+    }
+
+    @Test
+    void roundTripsAnEmptySegment() {
+        assertTrue(BillSegmentCodec.decode(BillSegmentCodec.encode(List.of())).isEmpty());
+    }
+
+    @Test
+    void keepsTheOrderItIsGiven() {
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            bills.add(bill(new Money(i), true, LocalDateTime.of(2021, 3, 1 + i % 28, 0, 0),
+                    LocalDateTime.of(2021, 4, 1, 0, 0), (long) i));
+        }
+        List<Bill> decoded = BillSegmentCodec.decode(BillSegmentCodec.encode(bills));
+        assertEquals(bills.stream().map(Bill::getId).toList(), decoded.stream().map(Bill::getId).toList());
+    }
+
+    @Test
+    void rejectsAnUnknownFormat() throws IOException {
+        byte[] payload = deflated(out -> {
+            out.writeInt(BillSegmentCodec.FORMAT + 1);
+            out.writeInt(0);
+        });
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> BillSegmentCodec.decode(payload));
+        assertTrue(e.getMessage().contains(Integer.toString(BillSegmentCodec.FORMAT + 1)));
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] deflated(Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            writer.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Bill bill(Money amount, boolean entered, LocalDateTime dueDate, LocalDateTime updatedAt,
+                             Long version) {
+        return Bill.builder()
+                .id(UUID.randomUUID())
+                .providerId(UUID.randomUUID())
+                .amount(amount)
+                .amountEntered(entered)
+                .status(BillStatus.PAYED)
+                .dueDate(dueDate)
+                .createdAt(dueDate.minusDays(20).withNano(7))
+                .updatedAt(updatedAt)
+                .version(version)
+                .build();
+    }
+
+    private static void assertSameBill(Bill expected, Bill actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getProviderId(), actual.getProviderId());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.isAmountEntered(), actual.isAmountEntered());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+        if (expected.getVersion() != null) {
+            assertEquals(expected.getVersion(), actual.getVersion());
+        }
+    }
+}
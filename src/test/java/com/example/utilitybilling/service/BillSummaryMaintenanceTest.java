@@ -0,0 +1,145 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every write path keeps the monthly summary equal to the aggregate over the bill table, whether it goes
+// through deltas (imports, bill updates) or through a refresh (schedule changes); a rebuild changes nothing.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:summary-maintenance;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false"})
+class BillSummaryMaintenanceTest {
+
+    private static final int PROVIDERS = 30;
+
+    @Autowired
+    private UtilityBillingService billingService;
+
+    @Autowired
+    private BillSummaryService summaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(23);
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary");
+        jdbcTemplate.update("DELETE FROM bill");
+        jdbcTemplate.update("DELETE FROM utility_provider");
+    }
+
+    @Test
+    void summaryFollowsEveryBillWrite() {
+        List<UtilityProvider> imported = new ArrayList<>();
+        for (int i = 0; i < PROVIDERS; i++) {
+            imported.add(UtilityProvider.builder()
+                    .name("Provider " + i)
+                    .frequency(BillingFrequency.values()[i % BillingFrequency.values().length])
+                    .dueDay(1 + i % 28)
+                    .defaultAmount(i % 3 == 0 ? null : Money.of(BigDecimal.valueOf(1000 + i * 37L, 2)))
+                    .build());
+        }
+        UtilityBillingService.ImportResult result = billingService.importProviders(imported);
+        assertEquals(PROVIDERS, result.providersCreated());
+        assertTrue(result.billsCreated() > PROVIDERS, "drafts of the horizon are created too");
+        assertSummaryMatchesBills("after the import");
+
+        List<UUID> current = billIds(BillStatus.NOT_ARRIVED);
+        assertEquals(PROVIDERS, current.size());
+        billingService.updateBill(current.get(0), amount(), BillStatus.ARRIVED);
+        billingService.updateBill(current.get(1), amount(), BillStatus.PAYED);
+        billingService.updateBill(current.get(2), amount(), BillStatus.NOT_ARRIVED);
+        // Status only, the amount stays
+        billingService.updateBill(current.get(0), null, BillStatus.PAYED);
+        assertSummaryMatchesBills("after single updates");
+
+        List<UUID> drafts = billIds(BillStatus.DRAFT);
+        List<UtilityBillingService.BillChange> changes = new ArrayList<>();
+        for (UUID billId : current.subList(3, 15)) {
+            changes.add(new UtilityBillingService.BillChange(billId, random.nextBoolean() ? amount() : null,
+                    random.nextBoolean() ? BillStatus.ARRIVED : BillStatus.PAYED));
+        }
+        changes.add(new UtilityBillingService.BillChange(drafts.get(0), amount(), BillStatus.NOT_ARRIVED));
+        changes.add(new UtilityBillingService.BillChange(drafts.get(1), null, BillStatus.DRAFT));
+        // The same bill twice in one request, then a backward move and an unknown id
+        changes.add(new UtilityBillingService.BillChange(current.get(3), amount(), BillStatus.PAYED));
+        changes.add(new UtilityBillingService.BillChange(current.get(1), amount(), BillStatus.NOT_ARRIVED));
+        changes.add(new UtilityBillingService.BillChange(UUID.randomUUID(), amount(), BillStatus.PAYED));
+        List<UtilityBillingService.BillChangeOutcome> outcomes = billingService.updateBills(changes);
+        assertEquals(UtilityBillingService.BillChangeOutcome.REJECTED, outcomes.get(outcomes.size() - 2));
+        assertEquals(UtilityBillingService.BillChangeOutcome.NOT_FOUND, outcomes.get(outcomes.size() - 1));
+        assertSummaryMatchesBills("after the bulk update");
+
+        // One provider with an unsettled current bill, one whose current bill is settled and kept
+        UUID unsettled = providerOf(current.get(20));
+        UUID settled = providerOf(current.get(0));
+        for (UUID providerId : List.of(unsettled, settled)) {
+            UtilityProvider provider = billingService.findAllProviders().stream()
+                    .filter(p -> p.getId().equals(providerId))
+                    .findFirst().orElseThrow();
+            billingService.updateProvider(providerId, UtilityProvider.builder()
+                    .name(provider.getName())
+                    .frequency(provider.getFrequency() == BillingFrequency.QUARTERLY
+                            ? BillingFrequency.MONTHLY : BillingFrequency.QUARTERLY)
+                    .comment("rescheduled")
+                    .dueDay(provider.getDueDay() % 28 + 1)
+                    .build());
+            assertSummaryMatchesBills("after rescheduling " + providerId);
+        }
+
+        List<UUID> scheduled = new ArrayList<>();
+        for (UUID billId : current.subList(0, 25)) {
+            scheduled.add(providerOf(billId));
+        }
+        UtilityBillingService.ScheduleResyncResult resync =
+                billingService.updateProviderSchedules(scheduled, BillingFrequency.YEARLY, 15);
+        assertTrue(resync.providersUpdated() > 0);
+        assertTrue(resync.billsDeleted() > 0);
+        assertSummaryMatchesBills("after the mass schedule change");
+
+        List<String> maintained = summaryRows();
+        summaryService.rebuild();
+        assertEquals(maintained, summaryRows());
+    }
+
+    private Money amount() {
+        return Money.of(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+    }
+
+    private List<UUID> billIds(BillStatus status) {
+        return jdbcTemplate.queryForList("SELECT id FROM bill WHERE status = ? ORDER BY due_date, id", UUID.class,
+                status.name());
+    }
+
+    private UUID providerOf(UUID billId) {
+        return jdbcTemplate.queryForObject("SELECT provider_id FROM bill WHERE id = ?", UUID.class, billId);
+    }
+
+    private List<String> summaryRows() {
+        return jdbcTemplate.query("SELECT period, provider_id, status, bill_count, amount_sum " +
+                        "FROM bill_monthly_summary WHERE bill_count > 0 ORDER BY period, provider_id, status",
+                (rs, row) -> rs.getInt(1) + "/" + rs.getString(2) + "/" + rs.getString(3) + "=" + rs.getLong(4) + "/"
+                        + rs.getBigDecimal(5).stripTrailingZeros().toPlainString());
+    }
+
+    private void assertSummaryMatchesBills(String when) {
+        List<String> bills = jdbcTemplate.query("SELECT billing_period, provider_id, status, COUNT(*), " +
+                        "COALESCE(SUM(amount), 0) FROM bill GROUP BY billing_period, provider_id, status " +
+                        "ORDER BY billing_period, provider_id, status",
+                (rs, row) -> rs.getInt(1) + "/" + rs.getString(2) + "/" + rs.getString(3) + "=" + rs.getLong(4) + "/"
+                        + rs.getBigDecimal(5).stripTrailingZeros().toPlainString());
+        assertEquals(bills, summaryRows(), when);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Hammers the same bills from many threads: no write may be lost, statuses only move forward,
+// and the monthly summary must still match the bill table afterwards.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrent-updates;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false",
+        // enough attempts that contention alone never exhausts them
+        "billing.retry.max-attempts=100",
+        "billing.retry.initial-backoff=1ms",
+        "billing.retry.max-backoff=20ms"})
+class ConcurrentBillUpdateTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+    // Far enough back that no scheduled generation touches it
+    private static final YearMonth MONTH = YearMonth.of(2020, 1);
+
+    @Autowired
+    private UtilityBillingService billingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID providerId;
+
+    @BeforeEach
+    void seedProvider() {
+        providerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO utility_provider (id, name, frequency, due_day, created_at, default_amount) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                providerId, "Provider " + providerId, BillingFrequency.MONTHLY.name(), 1,
+                Timestamp.valueOf(MONTH.minusMonths(1).atDay(1).atStartOfDay()), new BigDecimal("10.00"));
+    }
+
+    @Test
+    void concurrentAmountUpdatesAreNotLost() throws Exception {
+        UUID billId = seedBills(1).get(0);
+        AtomicInteger updated = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                billingService.updateBill(billId, Money.of(BigDecimal.valueOf(thread * 1000 + i, 2)),
+                        BillStatus.NOT_ARRIVED);
+                updated.incrementAndGet();
+            }
+        });
+
+        assertEquals(THREADS * UPDATES_PER_THREAD, updated.get());
+        assertEquals(updated.get(), version(billId));
+        assertSummaryMatchesBills();
+    }
+
+    @Test
+    void concurrentStatusMovesOnlyGoForward() throws Exception {
+        UUID billId = seedBills(1).get(0);
+        BillStatus[] statuses = {BillStatus.NOT_ARRIVED, BillStatus.ARRIVED, BillStatus.PAYED};
+        List<BillStatus> applied = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                BillStatus status = statuses[random.nextInt(statuses.length)];
+                try {
+                    billingService.updateBill(billId, Money.of(BigDecimal.valueOf(i + 1)), status);
+                    applied.add(status);
+                } catch (UpdateConflictException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(THREADS * UPDATES_PER_THREAD, applied.size() + rejected.get());
+        assertEquals(applied.size(), version(billId));
+        assertEquals(Collections.max(applied), status(billId));
+        assertThrows(UpdateConflictException.class,
+                () -> billingService.updateBill(billId, Money.of(BigDecimal.ONE), BillStatus.DRAFT));
+        assertSummaryMatchesBills();
+    }
+
+    @Test
+    void concurrentBulkUpdatesKeepSummaryConsistent() throws Exception {
+        List<UUID> billIds = seedBills(20);
+        AtomicInteger applied = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                List<UtilityBillingService.BillChange> changes = new ArrayList<>();
+                for (UUID billId : billIds) {
+                    if (random.nextBoolean()) {
+                        changes.add(new UtilityBillingService.BillChange(billId,
+                                Money.of(BigDecimal.valueOf(random.nextInt(100_000), 2)),
+                                random.nextBoolean() ? BillStatus.ARRIVED : BillStatus.NOT_ARRIVED));
+                    }
+                }
+                for (UtilityBillingService.BillChangeOutcome outcome : billingService.updateBills(changes)) {
+                    if (outcome == UtilityBillingService.BillChangeOutcome.UPDATED) {
+                        applied.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        long versions = billIds.stream().mapToLong(this::version).sum();
+        assertEquals(applied.get(), versions);
+        assertSummaryMatchesBills();
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // NOT_ARRIVED bills of MONTH for the seeded provider, one per day, with their summary row
+    private List<UUID> seedBills(int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // uq_bill_provider_period allows one bill per provider and month, so extra bills get their own provider
+            UUID owner = i == 0 ? providerId : UUID.randomUUID();
+            if (i > 0) {
+                jdbcTemplate.update("INSERT INTO utility_provider (id, name, frequency, due_day, created_at) " +
+                                "VALUES (?, ?, ?, ?, ?)",
+                        owner, "Provider " + owner, BillingFrequency.MONTHLY.name(), 1, now);
+            }
+            UUID id = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO bill (id, provider_id, status, due_date, created_at, updated_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)",
+                    id, owner, BillStatus.NOT_ARRIVED.name(), Timestamp.valueOf(MONTH.atDay(1).atStartOfDay()), now, now);
+            jdbcTemplate.update("INSERT INTO bill_monthly_summary (period, provider_id, status, bill_count, amount_sum) " +
+                    "VALUES (?, ?, ?, 1, 0)", MONTH.getYear() * 100 + MONTH.getMonthValue(), owner,
+                    BillStatus.NOT_ARRIVED.name());
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private long version(UUID billId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM bill WHERE id = ?", Long.class, billId);
+    }
+
+    private BillStatus status(UUID billId) {
+        return BillStatus.valueOf(jdbcTemplate.queryForObject("SELECT status FROM bill WHERE id = ?", String.class, billId));
+    }
+
+    private void assertSummaryMatchesBills() {
+        int period = MONTH.getYear() * 100 + MONTH.getMonthValue();
+        List<String> summary = jdbcTemplate.query("SELECT provider_id, status, bill_count, amount_sum " +
+                        "FROM bill_monthly_summary WHERE period = ? AND bill_count > 0 ORDER BY provider_id, status",
+                (rs, row) -> rs.getString(1) + "/" + rs.getString(2) + "=" + rs.getLong(3) + "/"
+                        + rs.getBigDecimal(4).stripTrailingZeros().toPlainString(), period);
+        List<String> bills = jdbcTemplate.query("SELECT provider_id, status, COUNT(*), COALESCE(SUM(amount), 0) " +
+                        "FROM bill WHERE billing_period = ? GROUP BY provider_id, status ORDER BY provider_id, status",
+                (rs, row) -> rs.getString(1) + "/" + rs.getString(2) + "=" + rs.getLong(3) + "/"
+                        + rs.getBigDecimal(4).stripTrailingZeros().toPlainString(), period);
+        assertEquals(bills, summary);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.Bill;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Continuation tokens round-trip their keys, and the in-memory listing order matches the database's
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsIdCursors() {
+        for (UUID id : List.of(UUID.randomUUID(), new UUID(0, 0), new UUID(-1, -1), new UUID(Long.MIN_VALUE, 1))) {
+            String cursor = KeysetCursor.ofId(id);
+            assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"), cursor);
+            assertEquals(id, KeysetCursor.decodeId(cursor));
+        }
+    }
+
+    @Test
+    void roundTripsDueDateIdCursors() {
+        for (LocalDateTime dueDate : List.of(LocalDateTime.of(2025, 3, 1, 0, 0),
+                LocalDateTime.of(2025, 3, 31, 23, 59, 59), LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(2025, 3, 15, 12, 30, 0, 1_000))) {
+            UUID id = UUID.randomUUID();
+            KeysetCursor.DueDateId key = KeysetCursor.decodeDueDateId(KeysetCursor.ofDueDateId(dueDate, id));
+            assertEquals(dueDate, key.dueDate());
+            assertEquals(id, key.id());
+        }
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        String dueDateId = KeysetCursor.ofDueDateId(LocalDateTime.of(2025, 3, 1, 0, 0), UUID.randomUUID());
+        for (String cursor : List.of("", "not base64!", KeysetCursor.ofId(UUID.randomUUID()),
+                KeysetCursor.ofId(UUID.randomUUID()).substring(3))) {
+            assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decodeDueDateId(cursor), cursor);
+        }
+        for (String cursor : List.of("", "not base64!", dueDateId)) {
+            assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decodeId(cursor), cursor);
+        }
+    }
+
+    @Test
+    void ordersIdsUnsignedLikeTheDatabase() {
+        Random random = new Random(5);
+        List<Bill> bills = new ArrayList<>();
+        LocalDateTime dueDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        for (int i = 0; i < 2_000; i++) {
+            // Few due dates and ids sharing their high bits, so ties on either part are compared too
+            long high = random.nextInt(4) == 0 ? Long.MIN_VALUE + random.nextInt(3) : random.nextLong();
+            bills.add(bill(dueDate.plusDays(random.nextInt(3)), new UUID(high, random.nextLong())));
+        }
+        bills.add(bill(dueDate, new UUID(0, 0)));
+        bills.add(bill(dueDate, new UUID(-1, -1)));
+
+        List<Bill> sorted = new ArrayList<>(bills);
+        sorted.sort(KeysetCursor.DUE_DATE_ID_ORDER);
+        List<Bill> expected = new ArrayList<>(bills);
+        // H2 and PostgreSQL sort UUIDs as their 16 bytes, unsigned: the order of the hex digits
+        expected.sort(Comparator.comparing(Bill::getDueDate).thenComparing(b -> b.getId().toString()));
+
+        assertEquals(expected, sorted);
+        assertEquals(new UUID(0, 0), sorted.get(0).getId());
+        assertEquals(new UUID(-1, -1), sorted.stream().filter(b -> b.getDueDate().equals(dueDate))
+                .reduce((a, b) -> b).orElseThrow().getId());
+    }
+
+    private static Bill bill(LocalDateTime dueDate, UUID id) {
+        return Bill.builder().dueDate(dueDate).id(id).build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.config.BillingProperties;
+import com.example.utilitybilling.events.ChangeEvent;
+import com.example.utilitybilling.events.LocalQueueEventSink;
+import com.example.utilitybilling.model.OutboxEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The relay hands every outbox event to the sinks once, in id order, and only while it holds the relay lease.
+// Scheduled relay polls are pushed out of the way; the tests drain by hand.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false",
+        "billing.events.poll-interval=PT1H",
+        "billing.events.batch-size=50",
+        "billing.events.sink=local"})
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private LocalQueueEventSink sink;
+
+    @Autowired
+    private BillingProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearOutbox() {
+        // Waits for a relay run the application started on its own
+        relay.drain();
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("UPDATE outbox_relay_lease SET owner = NULL, lease_until = NULL");
+        sink.drainTo(new ArrayList<>());
+    }
+
+    @Test
+    void publishesEveryEventOnceInIdOrder() {
+        List<Long> ids = insertEvents(120);
+
+        assertEquals(120, relay.drain());
+        assertEquals(ids, published());
+        assertEquals(0L, unpublishedCount());
+
+        // Nothing is handed out twice
+        assertEquals(0, relay.drain());
+        assertEquals(List.of(), published());
+
+        List<Long> more = insertEvents(3);
+        assertEquals(3, relay.drain());
+        assertEquals(more, published());
+    }
+
+    @Test
+    void leavesTheOutboxToTheLeaseHolder() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        jdbcTemplate.update("UPDATE outbox_relay_lease SET owner = ?, lease_until = ?",
+                "other-node", Timestamp.valueOf(now.plusMinutes(1)));
+        List<Long> ids = insertEvents(10);
+
+        assertEquals(0, relay.drain());
+        assertEquals(List.of(), published());
+        assertEquals(10L, unpublishedCount());
+
+        // Once the other node let its lease run out, this one takes over
+        jdbcTemplate.update("UPDATE outbox_relay_lease SET lease_until = ?", Timestamp.valueOf(now.minusSeconds(1)));
+        assertEquals(10, relay.drain());
+        assertEquals(ids, published());
+        assertEquals(properties.getGeneration().getNodeId(),
+                jdbcTemplate.queryForObject("SELECT owner FROM outbox_relay_lease", String.class));
+    }
+
+    private List<Long> insertEvents(int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO outbox_event (event_type, aggregate_id, occurred_at) VALUES (?, ?, ?)",
+                    OutboxEventType.BILL_UPDATED.name(), UUID.randomUUID(), now);
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM outbox_event WHERE published_at IS NULL ORDER BY id",
+                Long.class);
+    }
+
+    private List<Long> published() {
+        List<ChangeEvent> events = new ArrayList<>();
+        sink.drainTo(events);
+        return events.stream().map(ChangeEvent::id).toList();
+    }
+
+    private long unpublishedCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event WHERE published_at IS NULL", Long.class);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Scans announce each unpaid bill once as it passes the grace period, and never look behind the watermark.
+// Bills that turn unpaid behind it (generated for a past month, promoted DRAFTs) are announced by the change.
+// Scheduled scans are off; the tests scan by hand.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:overdue-scanner;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false",
+        "billing.overdue.scan-cron=-",
+        "billing.overdue.grace=1d",
+        "billing.overdue.initial-lookback=7d"})
+class OverdueBillScannerTest {
+
+    @Autowired
+    private OverdueBillScanner scanner;
+
+    @Autowired
+    private PartitionedBillGeneration generation;
+
+    @Autowired
+    private DraftBillHorizon draftHorizon;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        jdbcTemplate.update("DELETE FROM generation_partition_lease");
+        jdbcTemplate.update("DELETE FROM bill_generation_run");
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary");
+        jdbcTemplate.update("DELETE FROM bill");
+        jdbcTemplate.update("DELETE FROM utility_provider");
+        jdbcTemplate.update("UPDATE overdue_scan_watermark SET scanned_through = NULL");
+        now = LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    @Test
+    void firstScanLooksBackTheInitialLookback() {
+        UUID notArrived = bill(BillStatus.NOT_ARRIVED, now.minusDays(3));
+        UUID arrived = bill(BillStatus.ARRIVED, now.minusDays(6));
+        bill(BillStatus.PAYED, now.minusDays(3));
+        bill(BillStatus.DRAFT, now.minusDays(3));
+        // Within the grace period, and before the lookback
+        bill(BillStatus.NOT_ARRIVED, now.minusHours(12));
+        bill(BillStatus.NOT_ARRIVED, now.minusDays(9));
+
+        LocalDateTime before = scanner.overdueThrough(LocalDateTime.now(ZoneOffset.UTC));
+        assertEquals(2, scanner.scan());
+        LocalDateTime after = scanner.overdueThrough(LocalDateTime.now(ZoneOffset.UTC));
+
+        assertEquals(Set.of(notArrived, arrived), new HashSet<>(overdueEvents()));
+        LocalDateTime watermark = watermark();
+        assertFalse(watermark.isBefore(before) || watermark.isAfter(after), watermark.toString());
+    }
+
+    @Test
+    void laterScansStartAtTheWatermark() {
+        setWatermark(now.minusDays(3));
+        bill(BillStatus.NOT_ARRIVED, now.minusDays(4));
+        UUID since = bill(BillStatus.ARRIVED, now.minusDays(2));
+        // Still within its grace period: left to a later scan
+        bill(BillStatus.NOT_ARRIVED, now.minusHours(12));
+
+        assertEquals(1, scanner.scan());
+        assertEquals(0, scanner.scan());
+        assertEquals(List.of(since), overdueEvents());
+    }
+
+    @Test
+    void billsGeneratedBehindTheWatermarkAreAnnouncedOnce() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).minusMonths(2);
+        for (int i = 0; i < 5; i++) {
+            provider(month.minusMonths(1).atDay(1).atStartOfDay());
+        }
+        assertEquals(0, scanner.scan());
+
+        assertEquals(5, generation.run(month).billsCreated());
+        List<UUID> bills = jdbcTemplate.queryForList("SELECT id FROM bill ORDER BY id", UUID.class);
+        assertEquals(5, bills.size());
+        assertEquals(new HashSet<>(bills), new HashSet<>(overdueEvents()));
+
+        // The scans never look back there, and the generation does not announce them again
+        assertEquals(0, scanner.scan());
+        jdbcTemplate.update("DELETE FROM generation_partition_lease");
+        jdbcTemplate.update("DELETE FROM bill_generation_run");
+        assertEquals(0, generation.run(month).billsCreated());
+        assertEquals(5, overdueEvents().size());
+    }
+
+    @Test
+    void promotedDraftsBehindTheWatermarkAreAnnouncedOnce() {
+        LocalDateTime dueDate = now.minusDays(3);
+        UUID draft = bill(BillStatus.DRAFT, dueDate);
+        assertEquals(0, scanner.scan());
+        assertEquals(List.of(), overdueEvents());
+
+        assertEquals(1, draftHorizon.promoteDueDrafts());
+
+        assertEquals(List.of(draft), overdueEvents());
+        assertEquals(BillStatus.NOT_ARRIVED.name(),
+                jdbcTemplate.queryForObject("SELECT status FROM bill WHERE id = ?", String.class, draft));
+        assertEquals(0, scanner.scan());
+        assertEquals(0, draftHorizon.promoteDueDrafts());
+        assertEquals(List.of(draft), overdueEvents());
+    }
+
+    @Test
+    void changesAheadOfTheWatermarkAreLeftToTheScans() {
+        setWatermark(now.minusDays(5));
+        UUID draft = bill(BillStatus.DRAFT, now.minusDays(3));
+
+        // Due after the watermark: the promotion does not announce it, the next scan does
+        assertEquals(1, draftHorizon.promoteDueDrafts());
+        assertEquals(List.of(), overdueEvents());
+        assertEquals(1, scanner.scan());
+        assertEquals(List.of(draft), overdueEvents());
+    }
+
+    private UUID provider(LocalDateTime createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO utility_provider (id, name, frequency, due_day, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?)",
+                id, "Provider " + id, BillingFrequency.MONTHLY.name(), 1, Timestamp.valueOf(createdAt));
+        return id;
+    }
+
+    // One provider per bill: uq_bill_provider_period allows one bill per provider and month
+    private UUID bill(BillStatus status, LocalDateTime dueDate) {
+        UUID providerId = provider(dueDate.minusMonths(1));
+        UUID id = UUID.randomUUID();
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.update("INSERT INTO bill (id, provider_id, status, due_date, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                id, providerId, status.name(), Timestamp.valueOf(dueDate), created, created);
+        return id;
+    }
+
+    // Bills announced as overdue, in announcement order
+    private List<UUID> overdueEvents() {
+        return jdbcTemplate.queryForList("SELECT aggregate_id FROM outbox_event WHERE event_type = ? ORDER BY id",
+                UUID.class, OutboxEventType.BILL_OVERDUE.name());
+    }
+
+    private LocalDateTime watermark() {
+        return jdbcTemplate.queryForObject("SELECT scanned_through FROM overdue_scan_watermark WHERE id = 1",
+                Timestamp.class).toLocalDateTime();
+    }
+
+    private void setWatermark(LocalDateTime scannedThrough) {
+        jdbcTemplate.update("UPDATE overdue_scan_watermark SET scanned_through = ? WHERE id = 1",
+                Timestamp.valueOf(scannedThrough));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.utilitybilling.service;
+
+import com.example.utilitybilling.model.*;
+import com.example.utilitybilling.recurrence.BillingRecurrence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Partitioned, chunked runs create every due bill exactly once, skip what earlier attempts completed,
+// resume a partition after its checkpoint and leave partitions leased by other nodes alone.
+// Small chunks and few partitions, so every partition takes several chunks.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:partitioned-generation;DB_CLOSE_DELAY=-1",
+        "billing.generation.catch-up-on-startup=false",
+        "billing.generation.partitions=4",
+        "billing.generation.chunk-size=7",
+        "billing.generation.workers=2",
+        "billing.generation.node-id=test-node"})
+class PartitionedBillGenerationTest {
+
+    private static final int PROVIDERS = 120;
+    // Far enough back that no scheduled generation touches it
+    private static final YearMonth MONTH = YearMonth.of(2021, 6);
+    private static final int PERIOD = MONTH.getYear() * 100 + MONTH.getMonthValue();
+
+    @Autowired
+    private PartitionedBillGeneration generation;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int due;
+
+    @BeforeEach
+    void seedProviders() {
+        jdbcTemplate.update("DELETE FROM generation_partition_lease");
+        jdbcTemplate.update("DELETE FROM bill_generation_run");
+        jdbcTemplate.update("DELETE FROM bill_monthly_summary");
+        jdbcTemplate.update("DELETE FROM bill");
+        jdbcTemplate.update("DELETE FROM utility_provider");
+
+        Random random = new Random(17);
+        due = 0;
+        for (int i = 0; i < PROVIDERS; i++) {
+            BillingFrequency frequency = BillingFrequency.values()[i % BillingFrequency.values().length];
+            LocalDateTime createdAt = MONTH.minusMonths(random.nextInt(25)).atDay(1 + random.nextInt(28)).atStartOfDay();
+            jdbcTemplate.update("INSERT INTO utility_provider (id, name, frequency, due_day, created_at) " +
+                            "VALUES (?, ?, ?, ?, ?)",
+                    UUID.randomUUID(), "Provider " + i, frequency.name(), 1 + random.nextInt(28),
+                    Timestamp.valueOf(createdAt));
+            if (BillingRecurrence.isDue(BillingRecurrence.epochMonth(createdAt), frequency.getIntervalMonths(),
+                    BillingRecurrence.epochMonth(MONTH))) {
+                due++;
+            }
+        }
+        assertTrue(due > 0 && due < PROVIDERS);
+    }
+
+    @Test
+    void createsEveryDueBillOnceAcrossPartitionsAndChunks() {
+        PartitionedBillGeneration.RunReport report = generation.run(MONTH);
+
+        assertEquals(4, report.partitions());
+        assertEquals(4, report.partitionsProcessed());
+        assertEquals(0, report.partitionsFailed());
+        assertEquals(PROVIDERS, report.providersScanned());
+        assertEquals(due, report.billsCreated());
+        assertEquals(due, billCount());
+        assertEquals(due, (long) jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT provider_id) FROM bill WHERE billing_period = ?", Long.class, PERIOD));
+        assertLedger(GenerationRunStatus.COMPLETED, 4, PROVIDERS, due);
+    }
+
+    @Test
+    void skipsCompletedPartitionsWhenRunAgain() {
+        generation.run(MONTH);
+
+        PartitionedBillGeneration.RunReport again = generation.run(MONTH);
+
+        assertEquals(0, again.partitionsProcessed());
+        assertEquals(4, again.partitionsSkipped());
+        assertEquals(0, again.billsCreated());
+        assertEquals(due, billCount());
+        assertLedger(GenerationRunStatus.COMPLETED, 4, PROVIDERS, due);
+    }
+
+    @Test
+    void resumesAFailedPartitionAfterItsCheckpoint() {
+        generation.run(MONTH);
+
+        // Take partition 0 back to a checkpoint halfway through, as if the attempt had failed there
+        ProviderPartition partition = ProviderPartition.of(0, 4);
+        List<UUID> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM utility_provider WHERE id BETWEEN ? AND ? ORDER BY id", UUID.class,
+                partition.firstId(), partition.lastId());
+        assertTrue(ids.size() > 2, "providers in partition 0: " + ids.size());
+        int checkpoint = ids.size() / 2;
+        List<UUID> after = ids.subList(checkpoint + 1, ids.size());
+        int deleted = 0;
+        for (UUID providerId : after) {
+            deleted += jdbcTemplate.update("DELETE FROM bill WHERE provider_id = ? AND billing_period = ?",
+                    providerId, PERIOD);
+        }
+        jdbcTemplate.update("UPDATE generation_partition_lease SET status = ?, last_provider_id = ?, " +
+                        "providers_scanned = ?, bills_created = bills_created - ? " +
+                        "WHERE run_month = ? AND partition_no = 0",
+                PartitionLeaseStatus.FAILED.name(), ids.get(checkpoint), checkpoint + 1, deleted, MONTH.toString());
+        jdbcTemplate.update("UPDATE bill_generation_run SET status = ? WHERE run_month = ?",
+                GenerationRunStatus.FAILED.name(), MONTH.toString());
+
+        PartitionedBillGeneration.RunReport resumed = generation.run(MONTH);
+
+        assertEquals(1, resumed.partitionsProcessed());
+        assertEquals(3, resumed.partitionsSkipped());
+        // Only the providers after the checkpoint are scanned again
+        assertEquals(after.size(), resumed.providersScanned());
+        assertEquals(deleted, resumed.billsCreated());
+        assertEquals(due, billCount());
+        assertLedger(GenerationRunStatus.COMPLETED, 4, PROVIDERS, due);
+    }
+
+    @Test
+    void leavesPartitionsLeasedByAnotherNodeAlone() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < 4; i++) {
+            boolean leased = i == 2;
+            jdbcTemplate.update("INSERT INTO generation_partition_lease " +
+                            "(run_month, partition_no, partition_count, status, owner, lease_until, updated_at) " +
+                            "VALUES (?, ?, 4, ?, ?, ?, ?)",
+                    MONTH.toString(), i, (leased ? PartitionLeaseStatus.RUNNING : PartitionLeaseStatus.PENDING).name(),
+                    leased ? "other-node" : null, leased ? Timestamp.valueOf(now.plusHours(1)) : null,
+                    Timestamp.valueOf(now));
+        }
+        ProviderPartition leased = ProviderPartition.of(2, 4);
+        long leasedDue = jdbcTemplate.queryForList(
+                "SELECT created_at, frequency FROM utility_provider WHERE id BETWEEN ? AND ?",
+                leased.firstId(), leased.lastId()).stream()
+                .filter(row -> BillingRecurrence.isDue(
+                        BillingRecurrence.epochMonth(((Timestamp) row.get("CREATED_AT")).toLocalDateTime()),
+                        BillingFrequency.valueOf((String) row.get("FREQUENCY")).getIntervalMonths(),
+                        BillingRecurrence.epochMonth(MONTH)))
+                .count();
+
+        PartitionedBillGeneration.RunReport report = generation.run(MONTH);
+
+        assertEquals(3, report.partitionsProcessed());
+        assertEquals(1, report.partitionsSkipped());
+        assertEquals(due - leasedDue, billCount());
+        assertEquals(GenerationRunStatus.RUNNING, generation.findRun(MONTH).orElseThrow().getStatus());
+
+        // Once the other node's lease runs out, the partition is taken over
+        jdbcTemplate.update("UPDATE generation_partition_lease SET lease_until = ? " +
+                        "WHERE run_month = ? AND partition_no = 2",
+                Timestamp.valueOf(now.minusMinutes(1)), MONTH.toString());
+        PartitionedBillGeneration.RunReport takeover = generation.run(MONTH);
+
+        assertEquals(1, takeover.partitionsProcessed());
+        assertEquals(leasedDue, takeover.billsCreated());
+        assertEquals(due, billCount());
+        assertLedger(GenerationRunStatus.COMPLETED, 4, PROVIDERS, due);
+    }
+
+    private long billCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bill WHERE billing_period = ?", Long.class, PERIOD);
+    }
+
+    private void assertLedger(GenerationRunStatus status, int partitionsCompleted, long providersScanned,
+                              long billsCreated) {
+        BillGenerationRun run = generation.findRun(MONTH).orElseThrow();
+        assertEquals(status, run.getStatus());
+        assertEquals(partitionsCompleted, run.getPartitionsCompleted());
+        assertEquals(0, run.getPartitionsFailed());
+        assertEquals(providersScanned, run.getProvidersScanned());
+        assertEquals(billsCreated, run.getBillsCreated());
+        assertNotNull(run.getFinishedAt());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.utilitybilling.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Partitions must tile the provider id keyspace in the database's unsigned order: no gaps, no overlaps
+class ProviderPartitionTest {
+
+    private static final UUID MIN_ID = new UUID(0, 0);
+    private static final UUID MAX_ID = new UUID(-1, -1);
+
+    @Test
+    void partitionsTileTheKeyspace() {
+        for (int count : new int[] {1, 2, 3, 7, 16, 64, 1000, 65_536}) {
+            assertEquals(MIN_ID, ProviderPartition.of(0, count).firstId());
+            assertEquals(MAX_ID, ProviderPartition.of(count - 1, count).lastId());
+            for (int i = 0; i < count; i++) {
+                ProviderPartition partition = ProviderPartition.of(i, count);
+                assertEquals(i, partition.index());
+                assertEquals(count, partition.count());
+                assertTrue(compare(partition.firstId(), partition.lastId()) <= 0, partition.toString());
+                if (i + 1 < count) {
+                    assertEquals(ProviderPartition.of(i + 1, count).firstId(),
+                            ProviderPartition.successor(partition.lastId()), partition.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void partitionsSpanEvenRangesOfTheHighBits() {
+        for (int count : new int[] {3, 7, 16, 1000}) {
+            long smallest = Long.MAX_VALUE;
+            long largest = 0;
+            for (int i = 0; i < count; i++) {
+                ProviderPartition partition = ProviderPartition.of(i, count);
+                long span = (partition.lastId().getMostSignificantBits() >>> 32)
+                        - (partition.firstId().getMostSignificantBits() >>> 32) + 1;
+                smallest = Math.min(smallest, span);
+                largest = Math.max(largest, span);
+            }
+            assertTrue(largest - smallest <= 1, count + " partitions: " + smallest + " to " + largest);
+        }
+    }
+
+    @Test
+    void everyIdFallsIntoExactlyOnePartition() {
+        Random random = new Random(9);
+        List<UUID> ids = new ArrayList<>(List.of(MIN_ID, MAX_ID, new UUID(Long.MIN_VALUE, 0),
+                new UUID(Long.MAX_VALUE, -1)));
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        int count = 16;
+        int[] sizes = new int[count];
+        for (UUID id : ids) {
+            int matches = 0;
+            for (int i = 0; i < count; i++) {
+                ProviderPartition partition = ProviderPartition.of(i, count);
+                if (compare(partition.firstId(), id) <= 0 && compare(id, partition.lastId()) <= 0) {
+                    matches++;
+                    sizes[i]++;
+                }
+            }
+            assertEquals(1, matches, id.toString());
+        }
+        // Random ids spread evenly: 625 per partition on average
+        for (int size : sizes) {
+            assertTrue(size > 450 && size < 800, Arrays.toString(sizes));
+        }
+    }
+
+    @Test
+    void successorIsTheNextIdInUnsignedOrder() {
+        assertEquals(new UUID(5, 8), ProviderPartition.successor(new UUID(5, 7)));
+        assertEquals(new UUID(5, Long.MIN_VALUE), ProviderPartition.successor(new UUID(5, Long.MAX_VALUE)));
+        assertEquals(new UUID(6, 0), ProviderPartition.successor(new UUID(5, -1)));
+        assertEquals(new UUID(Long.MIN_VALUE, 0), ProviderPartition.successor(new UUID(Long.MAX_VALUE, -1)));
+        assertNull(ProviderPartition.successor(MAX_ID));
+    }
+
+    @Test
+    void allSpansTheWholeKeyspace() {
+        assertEquals(MIN_ID, ProviderPartition.ALL.firstId());
+        assertEquals(MAX_ID, ProviderPartition.ALL.lastId());
+    }
+
+    @Test
+    void rejectsPartitionsOutsideTheCount() {
+        assertThrows(IllegalArgumentException.class, () -> ProviderPartition.of(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> ProviderPartition.of(-1, 4));
+        assertThrows(IllegalArgumentException.class, () -> ProviderPartition.of(4, 4));
+    }
+
+    private static int compare(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}